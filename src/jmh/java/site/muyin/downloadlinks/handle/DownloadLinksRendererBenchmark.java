@@ -0,0 +1,114 @@
+package site.muyin.downloadlinks.handle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import site.muyin.downloadlinks.setting.PerformanceSetting;
+
+/**
+ * {@link DownloadLinksRenderer#render(String)} 基准测试
+ * <p>运行：{@code ./gradlew jmh}，结果包含吞吐量、分配速率（gc profiler）和延迟分位数。</p>
+ * <ul>
+ *     <li>{@link #render}：文档大小与下载块数量的组合，只测吞吐量</li>
+ *     <li>{@link #renderVariant}：代表性文档上的单项变化（大量实体、关闭缓存、无 head），
+ *     与大小和块数无交互，不再做交叉组合</li>
+ *     <li>{@link #renderLatency}：代表性文档的延迟分位数</li>
+ * </ul>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public class DownloadLinksRendererBenchmark {
+
+    private static final int LINKS_PER_BLOCK = 5;
+
+    /**
+     * 代表性文档：1 MB、10 个下载块
+     */
+    private static final int REPRESENTATIVE_SIZE = 1_048_576;
+    private static final int REPRESENTATIVE_BLOCKS = 10;
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+
+        @Param({"0", "1", "10", "200"})
+        public int blocks;
+
+        @Param({"10240", "1048576", "5242880"})
+        public int size;
+
+        DownloadLinksRenderer renderer;
+        String html;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            html = RenderCorpus.generate(size, blocks, LINKS_PER_BLOCK, true, false);
+            renderer = prepare(new PerformanceSetting());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Variant {
+
+        @Param({"entity-heavy", "uncached", "no-head"})
+        public String variant;
+
+        DownloadLinksRenderer renderer;
+        String html;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            html = RenderCorpus.generate(REPRESENTATIVE_SIZE, REPRESENTATIVE_BLOCKS,
+                    LINKS_PER_BLOCK, !"no-head".equals(variant), "entity-heavy".equals(variant));
+            renderer = prepare(new PerformanceSetting()
+                    .setRenderCacheMaxSize("uncached".equals(variant) ? 0 : 2048));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Representative {
+
+        DownloadLinksRenderer renderer;
+        String html;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            html = RenderCorpus.generate(REPRESENTATIVE_SIZE, REPRESENTATIVE_BLOCKS,
+                    LINKS_PER_BLOCK, true, false);
+            renderer = prepare(new PerformanceSetting());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public String render(Corpus corpus) {
+        return corpus.renderer.render(corpus.html).block();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public String renderVariant(Variant variant) {
+        return variant.renderer.render(variant.html).block();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public String renderLatency(Representative representative) {
+        return representative.renderer.render(representative.html).block();
+    }
+
+    /**
+     * 创建渲染器并预先加载快照，基准只衡量渲染本身
+     */
+    private static DownloadLinksRenderer prepare(PerformanceSetting performanceSetting) {
+        DownloadLinksRenderer renderer = TestRenderers.newRenderer(
+                TestRenderers.defaultSetting(), performanceSetting);
+        renderer.snapshot().block();
+        return renderer;
+    }
+}
@@ -0,0 +1,95 @@
+package site.muyin.downloadlinks.handle;
+
+import java.util.Random;
+
+/**
+ * 基准测试语料生成器
+ * <p>按目标大小生成文章内容，下载块均匀分布在正文中，每个下载块的内容互不相同。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+final class RenderCorpus {
+
+    private static final String[] SOURCES = {
+        "百度云网盘", "阿里云网盘", "蓝奏云网盘", "123云盘", "夸克网盘", "GitHub", "Onedrive"
+    };
+
+    private static final String PARAGRAPH = "<p>Halo 是一款强大易用的开源建站工具，"
+            + "这里是用于填充正文的段落内容，包含 <strong>加粗</strong> 与 <a href=\"/archives/x\">链接</a>。</p>\n";
+
+    private RenderCorpus() {
+    }
+
+    /**
+     * 生成文章
+     *
+     * @param targetSize 目标字符数
+     * @param blocks 下载块数量
+     * @param linksPerBlock 每个下载块的链接数
+     * @param withHead 是否包含 {@code <head>}
+     * @param entityHeavy 文件名是否包含大量需要转义的字符
+     */
+    static String generate(int targetSize, int blocks, int linksPerBlock, boolean withHead,
+                           boolean entityHeavy) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(targetSize + blocks * linksPerBlock * 256);
+        if (withHead) {
+            sb.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>bench</title></head><body>\n");
+        }
+        int bodyStart = sb.length();
+        int paragraphs = Math.max(1, (targetSize - bodyStart) / PARAGRAPH.length());
+        int every = blocks == 0 ? Integer.MAX_VALUE : Math.max(1, paragraphs / blocks);
+        int emitted = 0;
+        for (int i = 0; i < paragraphs || emitted < blocks; i++) {
+            if (i < paragraphs) {
+                sb.append(PARAGRAPH);
+            }
+            if (emitted < blocks && (i % every == every - 1 || i >= paragraphs)) {
+                appendBlock(sb, emitted++, linksPerBlock, entityHeavy, random);
+            }
+        }
+        if (withHead) {
+            sb.append("</body></html>\n");
+        }
+        return sb.toString();
+    }
+
+    private static void appendBlock(StringBuilder sb, int block, int links, boolean entityHeavy,
+                                    Random random) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < links; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            String source = SOURCES[random.nextInt(SOURCES.length)];
+            String filename = entityHeavy
+                    ? "资源 <" + block + "-" + i + "> \\\"Tom & Jerry's\\\" 合集 & 附件 <v2>.zip"
+                    : "resource-" + block + "-" + i + ".zip";
+            json.append("{\"url\":\"https://pan.example.com/s/").append(Long.toHexString(random.nextLong()))
+                    .append("?pwd=").append(block).append('&').append("from=").append(i)
+                    .append("\",\"filename\":\"").append(filename)
+                    .append("\",\"source\":\"").append(source)
+                    .append("\",\"code\":\"").append(Integer.toString(1000 + random.nextInt(9000), 36))
+                    .append("\"}");
+        }
+        json.append(']');
+        sb.append("<download-links data-links=\"").append(escapeAttribute(json)).append("\"></download-links>\n");
+    }
+
+    private static String escapeAttribute(CharSequence str) {
+        StringBuilder sb = new StringBuilder(str.length() * 2);
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '\'' -> sb.append("&#39;");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,8 +1,15 @@
 package site.muyin.downloadlinks;
 
 import org.springframework.stereotype.Component;
+import run.halo.app.extension.SchemeManager;
 import run.halo.app.plugin.BasePlugin;
 import run.halo.app.plugin.PluginContext;
+import site.muyin.downloadlinks.counter.DownloadCounter;
+import site.muyin.downloadlinks.extension.DownloadCount;
+import site.muyin.downloadlinks.extension.RenderedContent;
+import site.muyin.downloadlinks.handle.RenderScheduler;
+import site.muyin.downloadlinks.handle.RenderWarmup;
+import site.muyin.downloadlinks.handle.RenderedFragmentCache;
 
 /**
  * <p>Plugin main class to manage the lifecycle of the plugin.</p>
@@ -15,17 +22,41 @@ import run.halo.app.plugin.PluginContext;
 @Component
 public class DownloadLinksPlugin extends BasePlugin {
 
-    public DownloadLinksPlugin(PluginContext pluginContext) {
+    private final SchemeManager schemeManager;
+    private final DownloadCounter downloadCounter;
+    private final RenderWarmup renderWarmup;
+    private final RenderScheduler renderScheduler;
+    private final RenderedFragmentCache fragmentCache;
+
+    public DownloadLinksPlugin(PluginContext pluginContext, SchemeManager schemeManager,
+                               DownloadCounter downloadCounter, RenderWarmup renderWarmup,
+                               RenderScheduler renderScheduler,
+                               RenderedFragmentCache fragmentCache) {
         super(pluginContext);
+        this.schemeManager = schemeManager;
+        this.downloadCounter = downloadCounter;
+        this.renderWarmup = renderWarmup;
+        this.renderScheduler = renderScheduler;
+        this.fragmentCache = fragmentCache;
     }
 
     @Override
     public void start() {
+        schemeManager.register(RenderedContent.class);
+        schemeManager.register(DownloadCount.class);
+        downloadCounter.start();
+        renderWarmup.start();
         System.out.println("插件启动成功！");
     }
 
     @Override
     public void stop() {
+        renderWarmup.stop();
+        downloadCounter.stop();
+        renderScheduler.destroy();
+        fragmentCache.invalidateAll();
+        schemeManager.unregister(schemeManager.get(DownloadCount.class));
+        schemeManager.unregister(schemeManager.get(RenderedContent.class));
         System.out.println("插件停止！");
     }
 }
@@ -1,11 +1,18 @@
 package site.muyin.downloadlinks.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import site.muyin.downloadlinks.handle.DownloadLink;
+import site.muyin.downloadlinks.handle.RenderedFragmentCache;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
 
 /**
  * 插件bean配置类
@@ -30,4 +37,24 @@ public class PluginConfig {
         return mapper;
     }
 
+    /**
+     * 下载链接读取器
+     * 预先解析类型，供 {@code data-links} 流式解析复用
+     */
+    @Bean
+    public ObjectReader downloadLinkReader(ObjectMapper objectMapper) {
+        return objectMapper.readerFor(DownloadLink.class);
+    }
+
+    /**
+     * 渲染指标
+     * 注册到 Halo 提供的 MeterRegistry，不可用时退回全局注册表
+     */
+    @Bean
+    public DownloadLinksMetrics downloadLinksMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                                     RenderedFragmentCache fragmentCache) {
+        return new DownloadLinksMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry),
+                fragmentCache);
+    }
+
 }
\ No newline at end of file
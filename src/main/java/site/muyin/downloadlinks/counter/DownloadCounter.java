@@ -0,0 +1,300 @@
+package site.muyin.downloadlinks.counter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import run.halo.app.core.extension.content.Post;
+import run.halo.app.core.extension.content.SinglePage;
+import run.halo.app.extension.ListOptions;
+import run.halo.app.extension.Metadata;
+import run.halo.app.extension.ReactiveExtensionClient;
+import site.muyin.downloadlinks.extension.DownloadCount;
+import site.muyin.downloadlinks.extension.RenderedContent.OwnerKind;
+import site.muyin.downloadlinks.util.HashUtils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 下载次数计数器
+ * <p>点击只累加到内存中的计数，不做任何写入；定时将增量按内容合并后累加到
+ * {@link DownloadCount}，同一内容的多次点击在一个批次中只写入一次。
+ * 已持久化的次数按内容保存在内存快照中，渲染时直接读取，只有次数变化的内容更新版本。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DownloadCounter implements DisposableBean {
+
+    /**
+     * 点击上报地址前缀
+     */
+    public static final String CLICK_PATH_PREFIX =
+            "/apis/api.download-links.muyin.site/v1alpha1/clicks/";
+
+    private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 两次写入之间最多累计的计数键数量，超出后新的键被丢弃，防止伪造请求占用内存
+     */
+    private static final int MAX_PENDING_KEYS = 10_000;
+
+    /**
+     * 单个内容最多记录的链接数
+     */
+    private static final int MAX_LINKS_PER_OWNER = 1_000;
+
+    private final ReactiveExtensionClient client;
+
+    /**
+     * 尚未写入的计数，累加和取出都是单个键上的原子操作，取出后到来的点击计入新的键
+     */
+    private final Map<CounterKey, Long> pending = new ConcurrentHashMap<>();
+
+    private final Map<String, OwnerCounts> totals = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private Disposable flushing;
+
+    /**
+     * 记录一次点击
+     *
+     * @param owner 内容标识，见 {@link OwnerKind#entryName(String)}
+     * @param linkHash 链接地址哈希，见 {@link #linkHash(String)}
+     */
+    public void increment(String owner, String linkHash) {
+        CounterKey key = new CounterKey(owner, linkHash);
+        if (pending.size() >= MAX_PENDING_KEYS && !pending.containsKey(key)) {
+            return;
+        }
+        pending.merge(key, 1L, Long::sum);
+    }
+
+    /**
+     * 已持久化的下载次数
+     */
+    public long count(String owner, String linkHash) {
+        OwnerCounts counts = totals.get(owner);
+        Long count = counts == null ? null : counts.counts().get(linkHash);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 内容的下载次数版本，该内容的次数变化时更新，可作为渲染缓存键的一部分
+     *
+     * @return 尚无次数时为 0
+     */
+    public long version(String owner) {
+        OwnerCounts counts = totals.get(owner);
+        return counts == null ? 0 : counts.version();
+    }
+
+    /**
+     * 加载已持久化的次数并开始定时写入，需在 {@link DownloadCount} 注册后调用
+     */
+    public synchronized void start() {
+        if (flushing != null) {
+            return;
+        }
+        flushing = load()
+                .onErrorResume(e -> {
+                    log.warn("Failed to load download counts", e);
+                    return Mono.empty();
+                })
+                .thenMany(Flux.interval(FLUSH_INTERVAL)
+                        .onBackpressureDrop()
+                        .concatMap(tick -> flush()))
+                .subscribe();
+    }
+
+    /**
+     * 停止定时写入，并写入尚未持久化的计数
+     */
+    public synchronized void stop() {
+        if (flushing == null) {
+            return;
+        }
+        flushing.dispose();
+        flushing = null;
+        try {
+            flush().block(STOP_TIMEOUT);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush download counts on stop", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    /**
+     * 写入自上次写入以来的增量，失败的增量保留到下一批次
+     */
+    public Mono<Void> flush() {
+        return Mono.defer(() -> {
+            Map<String, Map<String, Long>> deltas = drain();
+            if (deltas.isEmpty()) {
+                return Mono.empty();
+            }
+            return Flux.fromIterable(deltas.entrySet())
+                    .concatMap(entry -> persist(entry.getKey(), entry.getValue())
+                            .onErrorResume(e -> {
+                                log.warn("Failed to save download counts of {}",
+                                        entry.getKey(), e);
+                                restore(entry.getKey(), entry.getValue());
+                                return Mono.empty();
+                            }))
+                    .then();
+        });
+    }
+
+    /**
+     * 链接地址哈希，用作计数键和上报地址的一部分
+     */
+    public static String linkHash(String url) {
+        String hex = Long.toHexString(HashUtils.fnv1a64(url));
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /**
+     * 是否为 {@link #linkHash(String)} 生成的哈希
+     */
+    public static boolean isLinkHash(String str) {
+        if (str == null || str.length() != 16) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 点击上报地址
+     */
+    public static String clickPath(String owner, String linkHash) {
+        return CLICK_PATH_PREFIX + URLEncoder.encode(owner, StandardCharsets.UTF_8)
+                + "/" + linkHash;
+    }
+
+    private Mono<Void> load() {
+        return client.listAll(DownloadCount.class, new ListOptions(), Sort.unsorted())
+                .doOnNext(this::updateTotals)
+                .then();
+    }
+
+    /**
+     * 逐个取出尚未写入的计数，按内容汇总
+     */
+    private synchronized Map<String, Map<String, Long>> drain() {
+        Map<String, Map<String, Long>> deltas = new HashMap<>();
+        for (CounterKey key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta != null) {
+                addDelta(deltas, key, delta);
+            }
+        }
+        return deltas;
+    }
+
+    private static void addDelta(Map<String, Map<String, Long>> deltas, CounterKey key,
+                                 long delta) {
+        if (delta > 0) {
+            deltas.computeIfAbsent(key.owner(), owner -> new HashMap<>())
+                    .merge(key.linkHash(), delta, Long::sum);
+        }
+    }
+
+    private void restore(String owner, Map<String, Long> deltas) {
+        deltas.forEach((linkHash, delta) ->
+                pending.merge(new CounterKey(owner, linkHash), delta, Long::sum));
+    }
+
+    /**
+     * 累加到内容对应的 {@link DownloadCount}，内容不存在时丢弃
+     */
+    private Mono<Void> persist(String owner, Map<String, Long> deltas) {
+        OwnerKind kind = OwnerKind.ofEntryName(owner);
+        if (kind == null) {
+            return Mono.empty();
+        }
+        String ownerName = kind.ownerName(owner);
+        Mono<Boolean> exists = kind == OwnerKind.POST
+                ? client.fetch(Post.class, ownerName).hasElement()
+                : client.fetch(SinglePage.class, ownerName).hasElement();
+        return exists
+                .filter(Boolean::booleanValue)
+                .flatMap(found -> client.fetch(DownloadCount.class, owner)
+                        .flatMap(existing -> {
+                            merge(existing.getSpec().getCounts(), deltas);
+                            return client.update(existing);
+                        })
+                        .switchIfEmpty(Mono.defer(() -> {
+                            DownloadCount downloadCount = new DownloadCount();
+                            Metadata metadata = new Metadata();
+                            metadata.setName(owner);
+                            downloadCount.setMetadata(metadata);
+                            DownloadCount.Spec spec = new DownloadCount.Spec()
+                                    .setOwnerKind(kind.value())
+                                    .setOwnerName(ownerName);
+                            merge(spec.getCounts(), deltas);
+                            downloadCount.setSpec(spec);
+                            return client.create(downloadCount);
+                        })))
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(100))
+                        .filter(OptimisticLockingFailureException.class::isInstance))
+                .doOnNext(this::updateTotals)
+                .then();
+    }
+
+    private static void merge(Map<String, Long> counts, Map<String, Long> deltas) {
+        deltas.forEach((linkHash, delta) -> {
+            if (counts.containsKey(linkHash) || counts.size() < MAX_LINKS_PER_OWNER) {
+                counts.merge(linkHash, delta, Long::sum);
+            }
+        });
+    }
+
+    private void updateTotals(DownloadCount downloadCount) {
+        Map<String, Long> counts = downloadCount.getSpec().getCounts();
+        Map<String, Long> snapshot = counts == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+        // 次数未变化时保留原版本，避免该内容的缓存片段失效
+        totals.compute(downloadCount.getMetadata().getName(), (owner, previous) ->
+                previous != null && previous.counts().equals(snapshot)
+                        ? previous : new OwnerCounts(snapshot, versions.incrementAndGet()));
+    }
+
+    private record CounterKey(String owner, String linkHash) {
+    }
+
+    /**
+     * 内容已持久化的下载次数
+     *
+     * @param version 次数版本，全局递增，不同内容或不同次数不会重复
+     */
+    private record OwnerCounts(Map<String, Long> counts, long version) {
+    }
+}
@@ -0,0 +1,61 @@
+package site.muyin.downloadlinks.endpoint;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.endpoint.CustomEndpoint;
+import run.halo.app.extension.GroupVersion;
+import site.muyin.downloadlinks.counter.DownloadCounter;
+import site.muyin.downloadlinks.extension.RenderedContent.OwnerKind;
+import site.muyin.downloadlinks.handle.RenderSnapshotProvider;
+
+/**
+ * 下载点击上报端点
+ * <p>下载卡片打开链接时通过 {@code navigator.sendBeacon} 或 {@code <a ping>} 调用，
+ * 只在内存中计数，总是立即返回 204。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Component
+@RequiredArgsConstructor
+public class DownloadLinksClickEndpoint implements CustomEndpoint {
+
+    /**
+     * 内容标识长度上限：内容类型前缀加上扩展名称的长度上限
+     */
+    private static final int MAX_OWNER_LENGTH = 12 + 253;
+
+    private final RenderSnapshotProvider snapshotProvider;
+    private final DownloadCounter downloadCounter;
+
+    @Override
+    public RouterFunction<ServerResponse> endpoint() {
+        return RouterFunctions.route()
+                .POST("/clicks/{owner}/{link}", this::click)
+                .build();
+    }
+
+    private Mono<ServerResponse> click(ServerRequest request) {
+        String owner = request.pathVariable("owner");
+        String link = request.pathVariable("link");
+        return snapshotProvider.get().flatMap(snapshot -> {
+            if (snapshot.downloadSetting().isClickTracking()
+                    && owner.length() <= MAX_OWNER_LENGTH
+                    && OwnerKind.ofEntryName(owner) != null
+                    && DownloadCounter.isLinkHash(link)) {
+                downloadCounter.increment(owner, link);
+            }
+            return ServerResponse.noContent().build();
+        });
+    }
+
+    @Override
+    public GroupVersion groupVersion() {
+        return GroupVersion.parseAPIVersion("api.download-links.muyin.site/v1alpha1");
+    }
+}
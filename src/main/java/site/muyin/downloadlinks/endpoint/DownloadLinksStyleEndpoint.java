@@ -0,0 +1,63 @@
+package site.muyin.downloadlinks.endpoint;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.endpoint.CustomEndpoint;
+import run.halo.app.extension.GroupVersion;
+import site.muyin.downloadlinks.handle.RenderSnapshotProvider;
+
+import java.time.Duration;
+
+/**
+ * 下载卡片样式表端点
+ * <p>文件名为样式内容哈希，内容随设置变化时地址随之变化，因此可设置为永久缓存。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Component
+@RequiredArgsConstructor
+public class DownloadLinksStyleEndpoint implements CustomEndpoint {
+
+    private static final MediaType TEXT_CSS = MediaType.valueOf("text/css;charset=UTF-8");
+    private static final String CSS_SUFFIX = ".css";
+
+    private final RenderSnapshotProvider snapshotProvider;
+
+    @Override
+    public RouterFunction<ServerResponse> endpoint() {
+        return RouterFunctions.route()
+                .GET("/styles/{file}", this::getStylesheet)
+                .build();
+    }
+
+    private Mono<ServerResponse> getStylesheet(ServerRequest request) {
+        String file = request.pathVariable("file");
+        String hash = file.endsWith(CSS_SUFFIX)
+                ? file.substring(0, file.length() - CSS_SUFFIX.length())
+                : file;
+        return snapshotProvider.get().flatMap(snapshot -> {
+            // 旧页面引用了过期的哈希时返回当前样式，但不允许长期缓存
+            CacheControl cacheControl = hash.equals(snapshot.stylesheetHash())
+                    ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+                    : CacheControl.noCache();
+            return ServerResponse.ok()
+                    .contentType(TEXT_CSS)
+                    .cacheControl(cacheControl)
+                    .eTag("\"" + snapshot.stylesheetHash() + "\"")
+                    .bodyValue(snapshot.stylesheet());
+        });
+    }
+
+    @Override
+    public GroupVersion groupVersion() {
+        return GroupVersion.parseAPIVersion("api.download-links.muyin.site/v1alpha1");
+    }
+}
@@ -0,0 +1,48 @@
+package site.muyin.downloadlinks.extension;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.swagger.v3.oas.annotations.media.Schema.RequiredMode.REQUIRED;
+
+/**
+ * 下载次数
+ * <p>每篇文章/页面一个，名称与 {@link RenderedContent.OwnerKind#entryName(String)} 相同，
+ * 点击计数在内存中汇总后按批次累加到这里。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "download-links.muyin.site", version = "v1alpha1", kind = "DownloadCount",
+        plural = "downloadcounts", singular = "downloadcount")
+public class DownloadCount extends AbstractExtension {
+
+    @Schema(requiredMode = REQUIRED)
+    private Spec spec;
+
+    @Data
+    @Accessors(chain = true)
+    public static class Spec {
+
+        /**
+         * 所属内容类型，见 {@link RenderedContent.OwnerKind#value()}
+         */
+        private String ownerKind;
+
+        private String ownerName;
+
+        /**
+         * 链接地址哈希到下载次数的映射
+         */
+        private Map<String, Long> counts = new LinkedHashMap<>();
+    }
+}
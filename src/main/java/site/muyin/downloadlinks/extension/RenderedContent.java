@@ -0,0 +1,116 @@
+package site.muyin.downloadlinks.extension;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+import static io.swagger.v3.oas.annotations.media.Schema.RequiredMode.REQUIRED;
+
+/**
+ * 预渲染内容
+ * <p>文章/页面发布时预先渲染下载卡片的结果，读取时在设置指纹、发布快照和输入哈希
+ * 都一致的情况下直接使用，否则回退到实时渲染。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "download-links.muyin.site", version = "v1alpha1", kind = "RenderedContent",
+        plural = "renderedcontents", singular = "renderedcontent")
+public class RenderedContent extends AbstractExtension {
+
+    @Schema(requiredMode = REQUIRED)
+    private Spec spec;
+
+    @Data
+    @Accessors(chain = true)
+    public static class Spec {
+
+        /**
+         * 所属内容类型，见 {@link OwnerKind#value()}
+         */
+        private String ownerKind;
+
+        private String ownerName;
+
+        /**
+         * 渲染时使用的发布快照名称
+         */
+        private String releaseSnapshot;
+
+        /**
+         * 渲染时的设置指纹
+         */
+        private String fingerprint;
+
+        /**
+         * 渲染前 raw 的哈希
+         */
+        private String rawHash;
+
+        /**
+         * 渲染前 content 的哈希
+         */
+        private String contentHash;
+
+        /**
+         * 渲染后的 raw，为空表示 raw 保持原样
+         */
+        private String raw;
+
+        /**
+         * 渲染后的 content
+         */
+        private String content;
+    }
+
+    /**
+     * 预渲染内容所属的内容类型
+     */
+    public enum OwnerKind {
+        POST("post"),
+        SINGLE_PAGE("single-page");
+
+        private final String value;
+
+        OwnerKind(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
+
+        /**
+         * 预渲染内容的名称，由内容类型和内容名称组成
+         */
+        public String entryName(String ownerName) {
+            return value + "-" + ownerName;
+        }
+
+        /**
+         * 从名称中取出内容名称，名称不属于该类型时返回 {@code null}
+         */
+        public String ownerName(String entryName) {
+            String prefix = value + "-";
+            return entryName.startsWith(prefix) && entryName.length() > prefix.length()
+                    ? entryName.substring(prefix.length()) : null;
+        }
+
+        /**
+         * 根据名称判断内容类型，无法识别时返回 {@code null}
+         */
+        public static OwnerKind ofEntryName(String entryName) {
+            for (OwnerKind kind : values()) {
+                if (kind.ownerName(entryName) != null) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package site.muyin.downloadlinks.handle;
+
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import site.muyin.downloadlinks.extension.RenderedContent;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+import site.muyin.downloadlinks.prerender.ContentPrerenderer;
+import site.muyin.downloadlinks.setting.PerformanceSetting;
+
+import java.util.Objects;
+
+/**
+ * 文章/页面内容处理器公共逻辑
+ * <p>同一请求内的 raw 与 content 共享一份设置快照：开启预渲染时优先使用与当前内容匹配的
+ * 预渲染结果；否则按设置可跳过 raw，内容相同时只渲染一次，其余情况 raw 在渲染调度器上、
+ * content 在当前线程上同时渲染。渲染调度器排队已满时输出未渲染的内容。</p>
+ *
+ * @param <C> 内容上下文类型
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public abstract class AbstractDownloadLinksContentHandler<C> {
+
+    protected final DownloadLinksRenderer renderer;
+    private final ContentPrerenderer prerenderer;
+    private final DownloadLinksMetrics metrics;
+    private final RenderedContent.OwnerKind ownerKind;
+    private final Timer rawTimer;
+    private final Timer contentTimer;
+
+    /**
+     * @param ownerKind 处理的内容类型，同时用作渲染耗时指标的标签
+     */
+    protected AbstractDownloadLinksContentHandler(DownloadLinksRenderer renderer,
+                                                  ContentPrerenderer prerenderer,
+                                                  DownloadLinksMetrics metrics,
+                                                  RenderedContent.OwnerKind ownerKind) {
+        this.renderer = renderer;
+        this.prerenderer = prerenderer;
+        this.metrics = metrics;
+        this.ownerKind = ownerKind;
+        String handlerName = ownerKind.value();
+        this.rawTimer = metrics.renderTimer(handlerName, DownloadLinksMetrics.PART_RAW);
+        this.contentTimer = metrics.renderTimer(handlerName, DownloadLinksMetrics.PART_CONTENT);
+    }
+
+    protected Mono<C> doHandle(C context) {
+        String raw = getRaw(context);
+        String content = getContent(context);
+
+        return renderer.snapshot().flatMap(snapshot -> {
+            if (!snapshot.prerenderEnabled()
+                    || !renderer.containsDownloadLinks(content)
+                    && !renderer.containsDownloadLinks(raw)) {
+                return renderLive(context, raw, content, snapshot);
+            }
+            return prerenderer.find(ownerKind, getOwnerName(context),
+                            getReleaseSnapshot(context), snapshot, raw, content)
+                    .map(stored -> {
+                        metrics.recordPrerender(true);
+                        if (stored.getRaw() != null) {
+                            setRaw(context, stored.getRaw());
+                        }
+                        setContent(context, stored.getContent());
+                        return context;
+                    })
+                    .switchIfEmpty(Mono.defer(() -> {
+                        metrics.recordPrerender(false);
+                        return renderLive(context, raw, content, snapshot);
+                    }));
+        });
+    }
+
+    private Mono<C> renderLive(C context, String raw, String content, RenderSnapshot snapshot) {
+        String owner = ownerKind.entryName(getOwnerName(context));
+        Mono<String> renderedContent = orUnrendered(
+                metrics.time(contentTimer, renderer.render(content, snapshot, owner)), content);
+        PerformanceSetting.ContentRenderMode mode =
+                snapshot.performanceSetting().getContentRenderMode();
+        if (mode == PerformanceSetting.ContentRenderMode.CONTENT_ONLY) {
+            return renderedContent.map(rendered -> {
+                setContent(context, rendered);
+                return context;
+            });
+        }
+        if (Objects.equals(raw, content)) {
+            return renderedContent.map(rendered -> {
+                setRaw(context, rendered);
+                setContent(context, rendered);
+                return context;
+            });
+        }
+        // raw 在渲染调度器上渲染，与当前线程上的 content 渲染同时进行
+        Mono<String> renderedRaw = orUnrendered(
+                metrics.time(rawTimer, renderer.renderOffloaded(raw, snapshot, owner)), raw);
+        return Mono.zip(renderedRaw, renderedContent)
+                .map(rendered -> {
+                    setRaw(context, rendered.getT1());
+                    setContent(context, rendered.getT2());
+                    return context;
+                });
+    }
+
+    /**
+     * 渲染调度器排队已满时原样输出，不在事件循环线程上渲染
+     */
+    private static Mono<String> orUnrendered(Mono<String> rendered, String html) {
+        return rendered.onErrorResume(RenderScheduler.RenderRejectedException.class,
+                e -> Mono.just(html));
+    }
+
+    /**
+     * 内容名称
+     */
+    protected abstract String getOwnerName(C context);
+
+    /**
+     * 内容当前的发布快照名称
+     */
+    protected abstract String getReleaseSnapshot(C context);
+
+    protected abstract String getRaw(C context);
+
+    protected abstract String getContent(C context);
+
+    protected abstract void setRaw(C context, String raw);
+
+    protected abstract void setContent(C context, String content);
+}
@@ -0,0 +1,109 @@
+package site.muyin.downloadlinks.handle;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static site.muyin.downloadlinks.handle.DownloadLinksRenderer.CONTAINER_ID_LENGTH;
+import static site.muyin.downloadlinks.handle.DownloadLinksRenderer.CONTAINER_ID_PREFIX;
+
+/**
+ * 批量渲染会话
+ * <p>同一响应中的多个文档共享一份设置快照和已渲染片段。各文档可并行渲染，
+ * 再按原顺序依次完成：样式只注入到第一个渲染出内容的文档，跨文档重复的根节点 id 追加序号。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+final class BatchRenderSession {
+
+    private final RenderSnapshot snapshot;
+    private final Map<RenderedFragmentCache.Key, RenderedFragmentCache.Fragment> fragments =
+            new ConcurrentHashMap<>();
+    private final Set<String> usedIds = new HashSet<>();
+    private boolean styleDone;
+
+    BatchRenderSession(RenderSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    RenderSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 各文档共享的已渲染片段，可并发访问
+     */
+    Map<RenderedFragmentCache.Key, RenderedFragmentCache.Fragment> fragments() {
+        return fragments;
+    }
+
+    /**
+     * 按文档顺序依次调用，完成样式注入和 id 去重
+     */
+    String complete(DownloadLinksRenderer.RenderedDocument document) {
+        String html = document.html();
+        if (document.styleFound()) {
+            styleDone = true;
+        }
+        if (!styleDone && document.styleOffset() >= 0) {
+            String styleBlock = snapshot.styleBlock();
+            html = new StringBuilder(html.length() + styleBlock.length() + 1)
+                    .append(html, 0, document.styleOffset())
+                    .append(styleBlock).append('\n')
+                    .append(html, document.styleOffset(), html.length())
+                    .toString();
+            styleDone = true;
+        }
+        Map<String, String> renames = null;
+        for (String id : document.containerIds()) {
+            if (usedIds.add(id)) {
+                continue;
+            }
+            String base = id.substring(0, CONTAINER_ID_LENGTH);
+            String uniqueId;
+            int n = 2;
+            do {
+                uniqueId = base + "-" + n++;
+            } while (document.containerIds().contains(uniqueId) || !usedIds.add(uniqueId));
+            if (renames == null) {
+                renames = new HashMap<>();
+            }
+            renames.put(id, uniqueId);
+        }
+        return renames == null ? html : replaceContainerIds(html, renames);
+    }
+
+    /**
+     * 一次扫描替换全部根节点 id，按完整 id（含序号）匹配，不会误改以其为前缀的其他 id
+     */
+    private static String replaceContainerIds(String html, Map<String, String> renames) {
+        StringBuilder out = new StringBuilder(html.length() + 8 * renames.size());
+        int len = html.length();
+        int pos = 0;
+        int start;
+        while ((start = html.indexOf(CONTAINER_ID_PREFIX, pos)) >= 0
+                && start + CONTAINER_ID_LENGTH <= len) {
+            int end = start + CONTAINER_ID_LENGTH;
+            if (end + 1 < len && html.charAt(end) == '-' && isDigit(html.charAt(end + 1))) {
+                end += 2;
+                while (end < len && isDigit(html.charAt(end))) {
+                    end++;
+                }
+            }
+            String replacement = renames.get(html.substring(start, end));
+            out.append(html, pos, replacement == null ? end : start);
+            if (replacement != null) {
+                out.append(replacement);
+            }
+            pos = end;
+        }
+        return out.append(html, pos, len).toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,99 @@
+package site.muyin.downloadlinks.handle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 预编译卡片模板
+ * <p>模板中的 {@code {{name}}} 占位符在编译时拆分为字面量片段和插槽，渲染时按顺序直接写入调用方提供的
+ * {@link StringBuilder}，不经过 {@link String#formatted(Object...)}。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public final class CardTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    /**
+     * 字面量片段，长度比插槽多 1
+     */
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private CardTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param source 模板内容
+     * @param slotNames 插槽名称，占位符按名称在此数组中的下标映射为插槽编号
+     */
+    public static CardTemplate compile(String source, String... slotNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, pos);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            int slot = Arrays.asList(slotNames).indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder: " + name);
+            }
+            literals.add(source.substring(pos, open));
+            slots.add(slot);
+            pos = close + CLOSE.length();
+        }
+        literals.add(source.substring(pos));
+        return new CardTemplate(literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * 渲染模板
+     *
+     * @param out 输出缓冲
+     * @param writer 插槽内容写入器
+     */
+    public void render(StringBuilder out, SlotWriter writer) {
+        out.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            writer.write(slots[i], out);
+            out.append(literals[i + 1]);
+        }
+    }
+
+    /**
+     * 模板字面量部分的总长度，用于预估输出缓冲大小
+     */
+    public int literalLength() {
+        return literalLength;
+    }
+
+    /**
+     * 插槽内容写入器
+     */
+    @FunctionalInterface
+    public interface SlotWriter {
+
+        void write(int slot, StringBuilder out);
+    }
+}
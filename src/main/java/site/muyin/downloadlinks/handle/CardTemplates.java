@@ -0,0 +1,140 @@
+package site.muyin.downloadlinks.handle;
+
+/**
+ * 下载卡片模板组
+ * <p>每个设置快照持有一组模板，渲染时不再解析模板。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public final class CardTemplates {
+
+    /**
+     * 容器模板插槽
+     */
+    static final int CONTAINER_ID = 0;
+    static final int ICON_STYLE = 1;
+    static final int ITEMS = 2;
+    static final int HYDRATION = 3;
+
+    /**
+     * 链接项模板插槽
+     */
+    static final int ICON_CLASS = 0;
+    static final int SOURCE = 1;
+    static final int ARIA_LABEL = 2;
+    static final int URL_JS = 3;
+    static final int DISPLAY_NAME = 4;
+    static final int CODE_INFO = 5;
+    static final int URL = 6;
+    static final int COUNT_INFO = 7;
+    static final int BEACON = 8;
+    static final int PING = 9;
+
+    /**
+     * 客户端渲染的数据脚本、按钮和脚本引用的长度
+     */
+    private static final int HYDRATION_LENGTH = 320;
+    /**
+     * 单个链接的 JSON 及其图标规则的平均长度
+     */
+    private static final int JSON_ITEM_LENGTH = 192;
+
+    private static final String[] CONTAINER_SLOTS =
+            {"containerId", "iconStyle", "items", "hydration"};
+    private static final String[] ITEM_SLOTS =
+            {"iconClass", "source", "ariaLabel", "urlJs", "displayName", "codeInfo", "url",
+                    "countInfo", "beacon", "ping"};
+
+    public static final CardTemplates STANDARD = new CardTemplates("standard",
+            CardTemplate.compile("""
+                    <div id="{{containerId}}" class="tools-download-links">
+                        <div class="tools-download-links__header">下载地址</div>
+                        {{iconStyle}}
+                        <div class="tools-download-links__list" role="list">
+                            {{items}}
+                        </div>{{hydration}}
+                    </div>
+                    """, CONTAINER_SLOTS),
+            CardTemplate.compile("""
+                    <div class="tools-download-links__item" role="listitem">
+                        <div class="tools-download-links__left">
+                            <div class="tools-download-links__icon {{iconClass}}" role="img" aria-label="{{source}}"></div>
+                            <div class="tools-download-links__info">
+                                <div class="tools-download-links__title">
+                                    <button class="tools-download-links__title-link" type="button" role="link" aria-label="{{ariaLabel}}" onclick="{{beacon}}window.open('{{urlJs}}', '_blank', 'noopener,noreferrer')">{{displayName}}</button>
+                                </div>
+                                <div class="tools-download-links__meta">
+                                    {{source}}{{codeInfo}}{{countInfo}}
+                                </div>
+                            </div>
+                        </div>
+                        <button class="tools-download-links__btn" type="button" aria-label="{{ariaLabel}}" onclick="{{beacon}}window.open('{{urlJs}}', '_blank', 'noopener,noreferrer')">
+                            <svg width="22" height="22" viewBox="0 0 24 24" fill="none" xmlns="http://www.w3.org/2000/svg">
+                                <path d="M12 3v10m0 0 4-4m-4 4-4-4M5 21h14" stroke="#fff" stroke-width="2" stroke-linecap="round" stroke-linejoin="round"/>
+                            </svg>
+                        </button>
+                    </div>
+                    """, ITEM_SLOTS));
+
+    /**
+     * 紧凑模板：去除空白，每个链接只输出一个带短类名的 {@code <a>}，其子元素按标签设置样式，
+     * 下载图标引用页面级的 SVG {@code <symbol>}，图标按下载源类名设置，不再为每个容器生成样式
+     */
+    public static final CardTemplates COMPACT = new CardTemplates("compact",
+            CardTemplate.compile(join(
+                    "<div id=\"{{containerId}}\" class=\"tools-download-links\">",
+                    "<div class=\"tools-download-links__header\">下载地址</div>",
+                    "<div class=\"tools-download-links__list\">{{items}}</div>",
+                    "{{hydration}}</div>"),
+                    CONTAINER_SLOTS),
+            CardTemplate.compile(join(
+                    "<a class=\"", DownloadLinksStyles.COMPACT_ITEM_CLASS, "\" href=\"{{url}}\"",
+                    " target=\"_blank\" rel=\"noopener noreferrer\"{{ping}}>",
+                    "<i class=\"{{iconClass}}\"></i>",
+                    "<span><b>{{displayName}}</b>",
+                    "<small>{{source}}{{codeInfo}}{{countInfo}}</small></span>",
+                    "<svg><use href=\"#", DownloadLinksStyles.ICON_SYMBOL_ID, "\"/></svg></a>"),
+                    ITEM_SLOTS));
+
+    private final String name;
+    private final CardTemplate container;
+    private final CardTemplate item;
+
+    private CardTemplates(String name, CardTemplate container, CardTemplate item) {
+        this.name = name;
+        this.container = container;
+        this.item = item;
+    }
+
+    /**
+     * 模板名称，客户端渲染时据此生成相同结构的链接项
+     */
+    public String name() {
+        return name;
+    }
+
+    public CardTemplate container() {
+        return container;
+    }
+
+    public CardTemplate item() {
+        return item;
+    }
+
+    /**
+     * 预估渲染所需的缓冲大小
+     *
+     * @param renderedCount 服务端渲染的链接数
+     * @param hydratedCount 以 JSON 输出、交给客户端渲染的链接数
+     */
+    public int estimateLength(int renderedCount, int hydratedCount) {
+        int length = container.literalLength() + renderedCount * (item.literalLength() + 256);
+        return hydratedCount > 0
+                ? length + HYDRATION_LENGTH + hydratedCount * JSON_ITEM_LENGTH : length;
+    }
+
+    private static String join(String... parts) {
+        return String.join("", parts);
+    }
+}
@@ -0,0 +1,24 @@
+package site.muyin.downloadlinks.handle;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * 下载链接
+ *
+ * @param url 下载地址
+ * @param filename 文件名
+ * @param source 下载源名称
+ * @param code 提取码
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record DownloadLink(String url, String filename, String source, String code) {
+
+    public DownloadLink {
+        url = url == null ? "" : url;
+        filename = filename == null ? "" : filename;
+        source = source == null ? "" : source;
+        code = code == null ? "" : code;
+    }
+}
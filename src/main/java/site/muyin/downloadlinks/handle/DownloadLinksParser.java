@@ -0,0 +1,69 @@
+package site.muyin.downloadlinks.handle;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@code data-links} 解析器
+ * <p>流式读取 JSON 数组，逐个解码为 {@link DownloadLink}，超过数量上限的链接直接丢弃。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Component
+@RequiredArgsConstructor
+public class DownloadLinksParser {
+
+    private final ObjectReader downloadLinkReader;
+
+    /**
+     * 解析 {@code data-links} 内容
+     *
+     * @param data 已反转义的内容
+     * @param length 有效字符数
+     * @param maxLinks 最多解析的链接数
+     * @throws IOException JSON 格式错误
+     */
+    public Result parse(char[] data, int length, int maxLinks) throws IOException {
+        try (JsonParser parser = downloadLinkReader.createParser(data, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return Result.EMPTY;
+            }
+            List<DownloadLink> links = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Unexpected end of data-links");
+                }
+                if (links.size() >= maxLinks) {
+                    return new Result(links, true);
+                }
+                if (token == JsonToken.START_OBJECT) {
+                    links.add(downloadLinkReader.readValue(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Result(links, false);
+        }
+    }
+
+    /**
+     * 解析结果
+     *
+     * @param links 解析出的链接
+     * @param truncated 是否因超过数量上限而被截断
+     */
+    public record Result(List<DownloadLink> links, boolean truncated) {
+
+        static final Result EMPTY = new Result(Collections.emptyList(), false);
+    }
+}
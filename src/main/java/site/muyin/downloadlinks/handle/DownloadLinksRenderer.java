@@ -1,19 +1,27 @@
 package site.muyin.downloadlinks.handle;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import run.halo.app.plugin.ReactiveSettingFetcher;
-import site.muyin.downloadlinks.setting.DownloadSetting;
+import site.muyin.downloadlinks.counter.DownloadCounter;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+import site.muyin.downloadlinks.setting.PerformanceSetting;
+import site.muyin.downloadlinks.util.CharChunkDecoder;
+import site.muyin.downloadlinks.util.EscapeUtils;
 
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * 下载链接渲染器
@@ -21,316 +29,665 @@ import java.util.regex.Pattern;
  * @author <a href="https://lywq.muyin.site">lywq</a>
  * @since 2024/12/11 11:30
  **/
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class DownloadLinksRenderer {
 
-    private static final Pattern TAG_PATTERN = Pattern.compile("(?s)<download-links\\b([^>]*)>.*?</download-links>");
-    private static final Pattern DATA_LINKS_PATTERN = Pattern.compile("data-links\\s*=\\s*\"(.*?)\"");
-    private static final String STYLE_ID = "tools-download-links-style";
-    private static final String STYLE_MARKER = "<!-- " + STYLE_ID + " -->";
+    static final String STYLE_ID = "tools-download-links-style";
+    static final String STYLE_MARKER = "<!-- " + STYLE_ID + " -->";
+    static final String CONTAINER_ID_PREFIX = "tools-download-links--";
+    /**
+     * 不含重复序号的根节点 id 长度：前缀加 16 位十六进制哈希
+     */
+    static final int CONTAINER_ID_LENGTH = CONTAINER_ID_PREFIX.length() + 16;
+    /**
+     * 客户端渲染脚本地址，由插件静态资源提供
+     */
+    static final String HYDRATE_SCRIPT_PATH =
+            "/plugins/download-links/assets/static/js/download-links.js";
 
-    private final ObjectMapper objectMapper;
-    private final ReactiveSettingFetcher settingFetcher;
+    private final DownloadLinksParser linksParser;
+    private final RenderSnapshotProvider snapshotProvider;
+    private final RenderedFragmentCache fragmentCache;
+    private final DownloadLinksMetrics metrics;
+    private final RenderScheduler renderScheduler;
+    private final DownloadCounter downloadCounter;
 
     public Mono<String> render(String html) {
         if (isBlank(html)) {
             return Mono.just(html);
         }
-        if (!TAG_PATTERN.matcher(html).find()) {
+        return snapshotProvider.get()
+                .flatMap(snapshot -> render(html, snapshot));
+    }
+
+    /**
+     * 使用指定的设置快照渲染，便于同一请求内的多次渲染共享快照
+     * <p>超过长度或下载块数量阈值的文档在渲染调度器上执行，其余在当前线程渲染。
+     * 渲染调度器排队已满时以 {@link RenderScheduler.RenderRejectedException} 结束。</p>
+     */
+    public Mono<String> render(String html, RenderSnapshot snapshot) {
+        return render(html, snapshot, null);
+    }
+
+    /**
+     * 渲染所属内容已知的文档，统计和显示下载次数时使用
+     *
+     * @param owner 内容标识，见 {@code RenderedContent.OwnerKind#entryName(String)}，
+     * 为 {@code null} 时不上报点击也不显示下载次数
+     */
+    public Mono<String> render(String html, RenderSnapshot snapshot, String owner) {
+        if (isBlank(html)) {
+            return Mono.just(html);
+        }
+        PerformanceSetting performanceSetting = snapshot.performanceSetting();
+        int concurrency = performanceSetting.getOffloadConcurrency();
+        int threshold = performanceSetting.getOffloadThreshold();
+        if (threshold > 0 && html.length() >= threshold * 1024L) {
+            if (!containsDownloadLinks(html)) {
+                metrics.recordInputSize(html.length());
+                metrics.recordFastExit();
+                return Mono.just(html);
+            }
+            // 大文档的扫描同样耗时，一并转移
+            return renderScheduler.offload(() -> renderNow(html, snapshot, owner), concurrency);
+        }
+        DownloadLinksScanner.ScanResult scan = scan(html);
+        if (!scan.hasTags()) {
             return Mono.just(html);
         }
-        boolean needsStyle = !html.contains(STYLE_ID) && !html.contains(STYLE_MARKER);
+        int blockThreshold = performanceSetting.getOffloadBlockThreshold();
+        if (blockThreshold > 0 && scan.tags().size() >= blockThreshold) {
+            return renderScheduler.offload(() -> renderDocument(html, scan, snapshot, owner),
+                    concurrency);
+        }
+        return Mono.fromSupplier(() -> renderDocument(html, scan, snapshot, owner));
+    }
 
-        return settingFetcher.fetch(DownloadSetting.GROUP, DownloadSetting.class)
-                .defaultIfEmpty(new DownloadSetting())
-                .map(downloadSetting -> {
-                    Map<String, String> sourceIconMap = buildSourceIconMap(downloadSetting);
-                    String styleBlock = needsStyle ? buildStyleBlock(downloadSetting) : "";
+    /**
+     * 在渲染调度器上渲染，用于与当前线程上的另一次渲染同时进行
+     * <p>不含下载块的文档直接返回，不切换线程。</p>
+     */
+    public Mono<String> renderOffloaded(String html, RenderSnapshot snapshot, String owner) {
+        if (isBlank(html) || !containsDownloadLinks(html)) {
+            return render(html, snapshot, owner);
+        }
+        return renderScheduler.offload(() -> renderNow(html, snapshot, owner),
+                snapshot.performanceSetting().getOffloadConcurrency());
+    }
 
-                    final boolean[] styleInjected = {false};
-                    String result = replaceAll(html, TAG_PATTERN, matcher -> {
-                        String attrs = matcher.group(1);
-                        String data = extractGroup(attrs, DATA_LINKS_PATTERN, 1);
-                        if (data == null) {
-                            return "";
-                        }
-                        data = unescapeHtml(data);
-                        List<Map<String, Object>> links;
-                        try {
-                            links = objectMapper.readValue(data, new TypeReference<>() {
-                            });
-                        } catch (Exception e) {
-                            links = Collections.emptyList();
-                        }
-                        String htmlContent = buildHtml(links, sourceIconMap);
-                        if (needsStyle && !styleInjected[0] && !links.isEmpty()) {
-                            styleInjected[0] = true;
-                            return styleBlock + "\n" + htmlContent;
-                        }
-                        return htmlContent;
-                    });
-                    if (needsStyle && !styleInjected[0]) {
-                        if (result.contains("</head>")) {
-                            result = result.replace("</head>", styleBlock + "\n</head>");
-                        } else {
-                            result = styleBlock + "\n" + result;
-                        }
-                    }
-                    return result;
-                });
+    /**
+     * 批量渲染，适用于列表页、订阅源等一次输出多篇内容的场景
+     *
+     * @param documents 文档列表，{@code null} 按空内容处理
+     * @return 与输入顺序一致的渲染结果
+     * @see #renderAll(Flux, RenderSnapshot)
+     */
+    public Mono<List<String>> renderBatch(List<String> documents) {
+        if (documents.isEmpty()) {
+            return Mono.just(Collections.emptyList());
+        }
+        return renderAll(Flux.fromIterable(documents).map(html -> html == null ? "" : html))
+                .collectList();
+    }
+
+    /**
+     * 批量渲染
+     *
+     * @see #renderAll(Flux, RenderSnapshot)
+     */
+    public Flux<String> renderAll(Flux<String> documents) {
+        return snapshotProvider.get()
+                .flatMapMany(snapshot -> renderAll(documents, snapshot));
+    }
+
+    /**
+     * 使用同一份设置快照批量渲染，按输入顺序输出
+     * <p>各文档中相同的下载块只渲染一次；样式只注入到第一个渲染出下载卡片的文档中，
+     * 不同文档中的相同下载块会得到不同的根节点 id，结果可直接拼接到同一页面。
+     * 并行度大于 1 时含下载块的文档在渲染调度器上并行渲染。</p>
+     */
+    public Flux<String> renderAll(Flux<String> documents, RenderSnapshot snapshot) {
+        int batchParallelism = snapshot.performanceSetting().getBatchParallelism();
+        int parallelism = batchParallelism > 0
+                ? batchParallelism : Runtime.getRuntime().availableProcessors();
+        return Flux.defer(() -> {
+            BatchRenderSession session = new BatchRenderSession(snapshot);
+            return documents
+                    .flatMapSequential(html -> renderForBatch(html, session, parallelism),
+                            parallelism)
+                    .map(session::complete);
+        });
     }
 
-    private Map<String, String> buildSourceIconMap(DownloadSetting downloadSetting) {
-        List<DownloadSetting.DownloadSource> sourceList = downloadSetting.getDownloadSourceList();
-        if (sourceList == null || sourceList.isEmpty()) {
-            return Collections.emptyMap();
+    private Mono<RenderedDocument> renderForBatch(String html, BatchRenderSession session,
+                                                  int parallelism) {
+        if (isBlank(html)) {
+            return Mono.just(RenderedDocument.unchanged(html));
         }
-        Map<String, String> map = new java.util.HashMap<>();
-        for (DownloadSetting.DownloadSource source : sourceList) {
-            if (isNotBlank(source.getName()) && isNotBlank(source.getIcon())) {
-                map.put(source.getName(), source.getIcon());
-            }
+        DownloadLinksScanner.ScanResult scan = scan(html);
+        if (!scan.hasTags()) {
+            return Mono.just(new RenderedDocument(html, -1, Collections.emptySet(),
+                    scan.styleFound()));
         }
-        return map;
+        RenderSnapshot snapshot = session.snapshot();
+        Supplier<RenderedDocument> task =
+                () -> renderDocument(html, scan, snapshot, null, "", session.fragments());
+        if (parallelism > 1) {
+            // 排队已满时原样输出，与不含下载块的文档相同
+            return renderScheduler.offload(task,
+                            snapshot.performanceSetting().getOffloadConcurrency())
+                    .onErrorResume(RenderScheduler.RenderRejectedException.class,
+                            e -> Mono.just(new RenderedDocument(html, -1,
+                                    Collections.emptySet(), scan.styleFound())));
+        }
+        return Mono.fromSupplier(task);
     }
 
-    private String buildStyleBlock(DownloadSetting downloadSetting) {
-        String lightModeSelector = downloadSetting.getLightModeSelector();
-        String darkModeSelector = downloadSetting.getDarkModeSelector();
-        List<DownloadSetting.DownloadSource> downloadSourceList = downloadSetting.getDownloadSourceList();
-
-        return """
-                    <style id="%s">%s
-                    .tools-download-links, .tools-download-links * { box-sizing: border-box; }
-                    .tools-download-links button { margin: 0; padding: 0; font: inherit; background: none; border: 0; color: inherit; }
-                
-                    .tools-download-links { border: 1px solid var(--tools-dl-border) !important; border-radius: 10px !important; background: var(--tools-dl-bg) !important; overflow: hidden !important; margin: 12px 0 !important; }
-                    .tools-download-links .tools-download-links__header { display: flex !important; align-items: center !important; gap: 6px !important; padding: 10px 12px !important; background: var(--tools-dl-header-bg) !important; border-bottom: 1px solid var(--tools-dl-border) !important; font-weight: 600 !important; color: var(--tools-dl-header-color) !important; font-size: 13px !important; }
-                    .tools-download-links .tools-download-links__list { margin: 0 !important; padding: 10px 12px !important; }
-                    .tools-download-links .tools-download-links__item { display: flex !important; align-items: center !important; justify-content: space-between !important; gap: 12px !important; padding: 12px 14px !important; border: 1px solid var(--tools-dl-border) !important; border-radius: 10px !important; margin: 10px 0 !important; background: var(--tools-dl-item-bg) !important; }
-                    .tools-download-links .tools-download-links__left { display: flex !important; align-items: center !important; gap: 10px !important; min-width: 0 !important; flex: 1 !important; }
-                    .tools-download-links .tools-download-links__icon { width: 40px !important; height: 40px !important; border-radius: 10px !important; background-color: var(--tools-dl-icon-bg) !important; flex-shrink: 0 !important; background-size: contain !important; background-position: center !important; background-repeat: no-repeat !important; display: block !important; }
-                    .tools-download-links .tools-download-links__info { display: grid !important; gap: 4px !important; min-width: 0 !important; flex: 1 !important; }
-                    .tools-download-links .tools-download-links__title { font-weight: 600 !important; white-space: nowrap !important; overflow: hidden !important; text-overflow: ellipsis !important; font-size: 14px !important; }
-                    .tools-download-links .tools-download-links__title-link { color: var(--tools-dl-title-link) !important; cursor: pointer !important; }
-                    .tools-download-links .tools-download-links__title-link:hover { color: var(--tools-dl-title-link-hover) !important; text-decoration: underline !important; }
-                    .tools-download-links .tools-download-links__meta { color: var(--tools-dl-meta) !important; font-size: 12px !important; }
-                    .tools-download-links button.tools-download-links__btn { margin-left: auto !important; display: inline-flex !important; align-items: center !important; justify-content: center !important; width: 36px !important; height: 36px !important; border-radius: 9999px !important; background: var(--tools-dl-btn-bg) !important; border: 1px solid var(--tools-dl-btn-border) !important; color: #ffffff !important; flex-shrink: 0 !important; transition: background .2s ease, border-color .2s ease !important; cursor: pointer !important; padding: 0 !important; font: inherit !important; }
-                    .tools-download-links button.tools-download-links__btn:hover { background: var(--tools-dl-btn-bg-hover) !important; border-color: var(--tools-dl-btn-border-hover) !important; }
-                    .tools-download-links button.tools-download-links__btn svg { width: 22px !important; height: 22px !important; }
-                
-                    :root {
-                        --tools-dl-border: #edf2f7;
-                        --tools-dl-bg: #fafcff;
-                        --tools-dl-header-bg: #f7fbff;
-                        --tools-dl-header-color: #0f172a;
-                        --tools-dl-item-bg: #ffffff;
-                        --tools-dl-icon-bg: #eef2f7;
-                        --tools-dl-title-link: #1d4ed8;
-                        --tools-dl-title-link-hover: #1e40af;
-                        --tools-dl-meta: #6b7280;
-                        --tools-dl-btn-bg: #60a5fa;
-                        --tools-dl-btn-border: #93c5fd;
-                        --tools-dl-btn-bg-hover: #3b82f6;
-                        --tools-dl-btn-border-hover: #60a5fa;
-                    }
-                
-                    %s {
-                        --tools-dl-border: #edf2f7;
-                        --tools-dl-bg: #fafcff;
-                        --tools-dl-header-bg: #f7fbff;
-                        --tools-dl-header-color: #0f172a;
-                        --tools-dl-item-bg: #ffffff;
-                        --tools-dl-icon-bg: #eef2f7;
-                        --tools-dl-title-link: #1d4ed8;
-                        --tools-dl-title-link-hover: #1e40af;
-                        --tools-dl-meta: #6b7280;
-                        --tools-dl-btn-bg: #60a5fa;
-                        --tools-dl-btn-border: #93c5fd;
-                        --tools-dl-btn-bg-hover: #3b82f6;
-                        --tools-dl-btn-border-hover: #60a5fa;
-                    }
-                    %s {
-                        --tools-dl-border: #374151;
-                        --tools-dl-bg: #1f2937;
-                        --tools-dl-header-bg: #374151;
-                        --tools-dl-header-color: #f9fafb;
-                        --tools-dl-item-bg: #374151;
-                        --tools-dl-icon-bg: #4b5563;
-                        --tools-dl-title-link: #60a5fa;
-                        --tools-dl-title-link-hover: #93c5fd;
-                        --tools-dl-meta: #9ca3af;
-                        --tools-dl-btn-bg: #3b82f6;
-                        --tools-dl-btn-border: #60a5fa;
-                        --tools-dl-btn-bg-hover: #2563eb;
-                        --tools-dl-btn-border-hover: #3b82f6;
-                    }
-                    </style>
-                """.formatted(STYLE_ID, STYLE_MARKER, lightModeSelector, darkModeSelector);
+    /**
+     * 流式渲染，逐块输出结果，适用于无法或不宜整体放入内存的大文档
+     * <p>样式注入在第一个下载块之前，而非 {@code </head>} 之前，其余输出与整篇渲染一致。</p>
+     *
+     * @param chunks 文档内容分块，标签可跨块
+     */
+    public Flux<CharSequence> render(Flux<? extends CharSequence> chunks) {
+        return snapshotProvider.get()
+                .flatMapMany(snapshot -> render(chunks, snapshot));
     }
 
-    private String buildHtml(List<Map<String, Object>> links, Map<String, String> sourceIconMap) {
-        if (links.isEmpty()) {
-            return "";
-        }
+    /**
+     * 使用指定的设置快照流式渲染
+     */
+    public Flux<CharSequence> render(Flux<? extends CharSequence> chunks,
+                                     RenderSnapshot snapshot) {
+        return Flux.defer(() -> {
+            StreamingRenderSession session =
+                    new StreamingRenderSession(this, snapshot, metrics, STYLE_ID);
+            return Flux.concat(chunks.concatMapIterable(session::accept),
+                    Flux.defer(() -> Flux.fromIterable(session.finish())));
+        });
+    }
 
-        String containerId = "tools-download-links--" + UUID.randomUUID().toString().replace("-", "");
-        StringBuilder items = new StringBuilder();
-        StringBuilder iconCssRules = new StringBuilder();
-        int index = 0;
-        for (Map<String, Object> link : links) {
-            String source = str(link.get("source"));
-            // 根据 source 从配置中获取 icon
-            String icon = sourceIconMap.getOrDefault(source, "");
-            String iconClass = "tools-download-links__icon--" + index;
-            items.append(buildLinkItem(link, iconClass));
-
-            if (isNotBlank(icon)) {
-                String cssUrl = escapeCssUrl(icon);
-                iconCssRules.append("#").append(containerId).append(" .").append(iconClass)
-                        .append("{background-image:url('")
-                        .append(escapeHtml(cssUrl))
-                        .append("') !important;}");
-            }
-            index++;
-        }
-
-        String iconStyleBlock = !iconCssRules.isEmpty()
-                ? "<style>" + iconCssRules + "</style>\n"
-                : "";
-
-        return """
-                <div id="%s" class="tools-download-links">
-                    <div class="tools-download-links__header">下载地址</div>
-                    %s
-                    <div class="tools-download-links__list" role="list">
-                        %s
-                    </div>
-                </div>
-                """.formatted(containerId, iconStyleBlock, items.toString());
+    /**
+     * 以 {@link DataBuffer} 为单位流式渲染，输入缓冲在读取后立即释放
+     *
+     * @param buffers 文档内容分块，多字节字符可跨块
+     * @param charset 输入与输出的字符集
+     * @param bufferFactory 输出缓冲工厂
+     */
+    public Flux<DataBuffer> render(Flux<DataBuffer> buffers, Charset charset,
+                                   DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            CharChunkDecoder decoder = new CharChunkDecoder(charset);
+            Flux<CharSequence> chunks = Flux.concat(
+                    buffers.map(buffer -> {
+                        try {
+                            byte[] bytes = new byte[buffer.readableByteCount()];
+                            buffer.read(bytes);
+                            return decoder.decode(bytes);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    }),
+                    Mono.fromSupplier(decoder::flush));
+            return render(chunks)
+                    .map(chunk -> bufferFactory.wrap(chunk.toString().getBytes(charset)));
+        });
+    }
+
+    /**
+     * 内容中是否可能包含下载块，仅做快速判断，不解析标签
+     */
+    public boolean containsDownloadLinks(String html) {
+        return html != null && html.contains(DownloadLinksScanner.OPEN_TAG);
+    }
+
+    /**
+     * 获取当前设置快照
+     */
+    public Mono<RenderSnapshot> snapshot() {
+        return snapshotProvider.get();
     }
 
-    private String buildLinkItem(Map<String, Object> link, String iconClass) {
-        String url = str(link.get("url"));
-        String filename = str(link.get("filename"));
-        String source = str(link.get("source"));
-        String code = str(link.get("code"));
-
-        String escapedSource = escapeHtml(source);
-        String displayName = escapeHtml(blankToDefault(filename, url));
-        String ariaLabel = escapeHtml("下载 " + blankToDefault(filename, url));
-
-        String jsEscapedUrl = escapeJsString(url);
-
-        String codeInfo = isNotBlank(code)
-                ? "  ·  提取码: " + escapeHtml(code)
-                : "";
-
-        return """
-                <div class="tools-download-links__item" role="listitem">
-                    <div class="tools-download-links__left">
-                        <div class="tools-download-links__icon %s" role="img" aria-label="%s"></div>
-                        <div class="tools-download-links__info">
-                            <div class="tools-download-links__title">
-                                <button class="tools-download-links__title-link" type="button" role="link" aria-label="%s" onclick="window.open('%s', '_blank', 'noopener,noreferrer')">%s</button>
-                            </div>
-                            <div class="tools-download-links__meta">
-                                %s%s
-                            </div>
-                        </div>
-                    </div>
-                    <button class="tools-download-links__btn" type="button" aria-label="%s" onclick="window.open('%s', '_blank', 'noopener,noreferrer')">
-                        <svg width="22" height="22" viewBox="0 0 24 24" fill="none" xmlns="http://www.w3.org/2000/svg">
-                            <path d="M12 3v10m0 0 4-4m-4 4-4-4M5 21h14" stroke="#fff" stroke-width="2" stroke-linecap="round" stroke-linejoin="round"/>
-                        </svg>
-                    </button>
-                </div>
-                """.formatted(iconClass, escapedSource, ariaLabel, jsEscapedUrl, displayName, escapedSource, codeInfo, ariaLabel, jsEscapedUrl);
+    private String renderNow(String html, RenderSnapshot snapshot, String owner) {
+        DownloadLinksScanner.ScanResult scan = scan(html);
+        return scan.hasTags() ? renderDocument(html, scan, snapshot, owner) : html;
     }
 
-    private String replaceAll(String input, Pattern pattern, java.util.function.Function<Matcher, String> replacer) {
-        Matcher matcher = pattern.matcher(input);
-        StringBuilder sb = new StringBuilder();
-        while (matcher.find()) {
-            String replacement = replacer.apply(matcher);
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+    private DownloadLinksScanner.ScanResult scan(String html) {
+        metrics.recordInputSize(html.length());
+        DownloadLinksScanner.ScanResult scan = DownloadLinksScanner.scan(html, STYLE_ID);
+        if (!scan.hasTags()) {
+            metrics.recordFastExit();
         }
-        matcher.appendTail(sb);
-        return sb.toString();
+        return scan;
+    }
+
+    private String renderDocument(String html, DownloadLinksScanner.ScanResult scan,
+                                  RenderSnapshot snapshot, String owner) {
+        String styleBlock = scan.styleFound() ? "" : snapshot.styleBlock();
+        return renderDocument(html, scan, snapshot, owner, styleBlock, null).html();
     }
 
-    private String extractGroup(String input, Pattern pattern, int group) {
-        if (input == null) {
-            return null;
+    /**
+     * 渲染文档中的全部下载块
+     *
+     * @param owner 内容标识，可为 {@code null}
+     * @param styleBlock 需注入的样式，为空时不注入
+     * @param sharedFragments 批量渲染时各文档共享的片段，可为 {@code null}
+     */
+    private RenderedDocument renderDocument(String html, DownloadLinksScanner.ScanResult scan,
+                                            RenderSnapshot snapshot, String owner,
+                                            String styleBlock,
+                                            Map<RenderedFragmentCache.Key,
+                                                    RenderedFragmentCache.Fragment>
+                                                    sharedFragments) {
+        List<DownloadLinksScanner.Tag> tags = scan.tags();
+        Set<String> containerIds = new LinkedHashSet<>();
+        int[] linkCount = new int[1];
+
+        // 先渲染全部片段，才能确定样式注入的位置
+        String[] fragments = new String[tags.size()];
+        int firstRendered = -1;
+        int extra = 0;
+        for (int i = 0; i < fragments.length; i++) {
+            String fragment = renderTag(html, tags.get(i), snapshot, owner, containerIds,
+                    linkCount, sharedFragments);
+            fragments[i] = fragment;
+            if (firstRendered < 0 && !fragment.isEmpty()) {
+                firstRendered = i;
+            }
+            extra += fragment.length();
         }
-        Matcher matcher = pattern.matcher(input);
-        if (matcher.find() && matcher.groupCount() >= group) {
-            return matcher.group(group);
+        metrics.recordPage(tags.size(), linkCount[0]);
+
+        int headIndex = firstRendered < 0 && !styleBlock.isEmpty() ? scan.headIndex() : -1;
+        boolean prependStyle = firstRendered < 0 && !styleBlock.isEmpty() && headIndex < 0;
+
+        StringBuilder out = new StringBuilder(html.length() + extra + styleBlock.length() + 1);
+        if (prependStyle) {
+            out.append(styleBlock).append('\n');
         }
-        return null;
+        int styleOffset = -1;
+        int pos = 0;
+        for (int i = 0; i < fragments.length; i++) {
+            DownloadLinksScanner.Tag tag = tags.get(i);
+            pos = copyUntil(html, pos, tag.start(), headIndex, styleBlock, out);
+            if (i == firstRendered) {
+                styleOffset = out.length();
+                if (!styleBlock.isEmpty()) {
+                    out.append(styleBlock).append('\n');
+                }
+            }
+            out.append(fragments[i]);
+            pos = tag.end();
+        }
+        copyUntil(html, pos, html.length(), headIndex, styleBlock, out);
+        return new RenderedDocument(out.toString(), styleOffset, containerIds, scan.styleFound());
     }
 
-    private boolean isBlank(String str) {
-        return str == null || str.trim().isEmpty();
+    /**
+     * 拷贝 {@code [from, to)} 区间，若 {@code </head>} 落在区间内则在其前注入样式
+     */
+    private int copyUntil(String html, int from, int to, int headIndex, String styleBlock,
+                          StringBuilder out) {
+        if (headIndex >= from && headIndex < to) {
+            out.append(html, from, headIndex).append(styleBlock).append('\n');
+            from = headIndex;
+        }
+        out.append(html, from, to);
+        return to;
     }
 
-    private boolean isNotBlank(String str) {
-        return !isBlank(str);
+    /**
+     * 渲染单个下载块
+     *
+     * @param owner 内容标识，可为 {@code null}
+     * @param containerIds 文档中已使用的根节点 id，重复时追加序号
+     * @param linkCount 累加渲染出的链接数
+     * @param sharedFragments 批量渲染时各文档共享的片段，可为 {@code null}
+     */
+    String renderTag(CharSequence html, DownloadLinksScanner.Tag tag, RenderSnapshot snapshot,
+                     String owner, Set<String> containerIds, int[] linkCount,
+                     Map<RenderedFragmentCache.Key, RenderedFragmentCache.Fragment>
+                             sharedFragments) {
+        if (!tag.hasData()) {
+            return "";
+        }
+        PerformanceSetting performanceSetting = snapshot.performanceSetting();
+        if (tag.dataEnd() - tag.dataStart() > performanceSetting.getMaxPayloadSize() * 1024L) {
+            metrics.recordOversizedPayload();
+            return "";
+        }
+        // 反转义结果直接写入字符数组交给 JSON 解析器，不生成中间字符串
+        char[] data = new char[tag.dataEnd() - tag.dataStart()];
+        int length = EscapeUtils.unescapeHtml(html, tag.dataStart(), tag.dataEnd(), data);
+        // 与所属内容有关的结果按内容分别缓存，该内容的下载次数变化后重新渲染
+        String keyOwner = snapshot.ownerDependent() ? owner : null;
+        long countsVersion = keyOwner != null && snapshot.downloadSetting().isShowDownloadCounts()
+                ? downloadCounter.version(keyOwner) : 0;
+        RenderedFragmentCache.Key key = new RenderedFragmentCache.Key(snapshot.version(),
+                RenderedFragmentCache.hash(data, length), length, keyOwner, countsVersion);
+        RenderedFragmentCache.Fragment fragment =
+                sharedFragments == null ? null : sharedFragments.get(key);
+        if (fragment != null && !fragment.matches(data, length)) {
+            fragment = null;
+        }
+        if (fragment == null) {
+            fragment = fragmentCache.get(key, data, length);
+            if (fragment == null) {
+                fragment = renderFragment(data, length, key, snapshot);
+                if (fragmentCache.isEnabled()) {
+                    fragmentCache.put(key, fragment);
+                }
+            }
+            if (sharedFragments != null) {
+                sharedFragments.put(key, fragment);
+            }
+        }
+        if (fragment.html().isEmpty()) {
+            return "";
+        }
+        linkCount[0] += fragment.linkCount();
+        // 根节点 id 由内容哈希决定，同一文档中重复出现的相同内容需保证 id 唯一
+        String containerId = fragment.containerId();
+        if (!containerIds.add(containerId)) {
+            String uniqueId = containerId;
+            for (int n = 2; !containerIds.add(uniqueId); n++) {
+                uniqueId = containerId + "-" + n;
+            }
+            return fragment.html().replace(containerId, uniqueId);
+        }
+        return fragment.html();
     }
 
-    private String blankToDefault(String str, String defaultValue) {
-        return isBlank(str) ? defaultValue : str;
+    private RenderedFragmentCache.Fragment renderFragment(char[] data, int length,
+                                                          RenderedFragmentCache.Key key,
+                                                          RenderSnapshot snapshot) {
+        List<DownloadLink> links;
+        try {
+            DownloadLinksParser.Result result = linksParser.parse(data, length,
+                    snapshot.performanceSetting().getMaxLinksPerBlock());
+            if (result.truncated()) {
+                metrics.recordTruncatedLinks();
+            }
+            links = result.links();
+        } catch (Exception e) {
+            // 解析失败的下载块按空内容处理，不影响页面其余部分
+            metrics.recordParseFailure();
+            log.debug("Failed to parse data-links, the block is skipped", e);
+            links = Collections.emptyList();
+        }
+        String containerId = containerId(key.payloadHash());
+        // 数组由调用方为本次渲染分配，长度一致时直接保存，无需复制
+        char[] payload = length == data.length ? data : Arrays.copyOf(data, length);
+        return new RenderedFragmentCache.Fragment(containerId,
+                buildHtml(links, snapshot, containerId, key.owner()), links.size(), payload);
+    }
+
+    /**
+     * 由内容哈希生成根节点 id，相同的内容和设置总是得到相同的输出，便于下游缓存命中
+     */
+    private static String containerId(long payloadHash) {
+        String hex = Long.toHexString(payloadHash);
+        return CONTAINER_ID_PREFIX + "0".repeat(16 - hex.length()) + hex;
     }
 
-    private String escapeHtml(String str) {
-        if (str == null) {
+    private String buildHtml(List<DownloadLink> links, RenderSnapshot snapshot,
+                             String containerId, String owner) {
+        if (links.isEmpty()) {
             return "";
         }
-        return str.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#39;");
+        CardTemplates templates = snapshot.cardTemplates();
+        ContainerSlots slots = new ContainerSlots(links, snapshot, containerId, owner);
+        // 交给客户端渲染的链接只输出 JSON，按预览数分别估算
+        StringBuilder out = new StringBuilder(templates.estimateLength(slots.previewCount,
+                links.size() - slots.previewCount));
+        templates.container().render(out, slots);
+        return out.toString();
     }
 
-    private String unescapeHtml(String str) {
-        if (str == null) {
-            return "";
+    /**
+     * 容器模板插槽写入器
+     */
+    private final class ContainerSlots implements CardTemplate.SlotWriter {
+
+        private final List<DownloadLink> links;
+        private final RenderSnapshot snapshot;
+        private final String containerId;
+        private final String owner;
+        /**
+         * 服务端渲染的链接数，其余链接交给客户端渲染
+         */
+        private final int previewCount;
+
+        ContainerSlots(List<DownloadLink> links, RenderSnapshot snapshot, String containerId,
+                       String owner) {
+            this.links = links;
+            this.snapshot = snapshot;
+            this.containerId = containerId;
+            this.owner = owner;
+            PerformanceSetting performanceSetting = snapshot.performanceSetting();
+            int hydrateThreshold = performanceSetting.getHydrateThreshold();
+            int previewSize = Math.max(0, performanceSetting.getHydratePreviewSize());
+            this.previewCount = hydrateThreshold > 0 && links.size() > hydrateThreshold
+                    ? Math.min(previewSize, links.size())
+                    : links.size();
+        }
+
+        @Override
+        public void write(int slot, StringBuilder out) {
+            switch (slot) {
+                case CardTemplates.CONTAINER_ID -> out.append(containerId);
+                case CardTemplates.ICON_STYLE -> writeIconStyle(out);
+                case CardTemplates.ITEMS -> writeItems(out);
+                case CardTemplates.HYDRATION -> writeHydration(out);
+                default -> {
+                }
+            }
+        }
+
+        private void writeIconStyle(StringBuilder out) {
+            if (snapshot.sharedIconRules()) {
+                // 页面样式已按下载源提供图标规则
+                return;
+            }
+            Map<String, String> sourceIconMap = snapshot.sourceIconMap();
+            int start = out.length();
+            for (int index = 0; index < links.size(); index++) {
+                DownloadLink link = links.get(index);
+                String source = snapshot.resolveIconSource(link.source(), link.url());
+                // 根据 source 从配置中获取 icon
+                String icon = source == null ? "" : sourceIconMap.get(source);
+                if (isNotBlank(icon)) {
+                    if (out.length() == start) {
+                        out.append("<style>");
+                    }
+                    out.append('#').append(containerId).append(" .")
+                            .append(DownloadLinksStyles.SOURCE_ICON_CLASS_PREFIX).append(index)
+                            .append("{background-image:url('");
+                    EscapeUtils.appendCssUrlInHtml(out, icon);
+                    out.append("') !important;}");
+                }
+            }
+            if (out.length() != start) {
+                out.append("</style>\n");
+            }
+        }
+
+        private void writeItems(StringBuilder out) {
+            CardTemplate template = snapshot.cardTemplates().item();
+            ItemSlots item = new ItemSlots(snapshot, owner);
+            for (int index = 0; index < previewCount; index++) {
+                item.reset(links.get(index), index);
+                template.render(out, item);
+            }
+        }
+
+        /**
+         * 输出其余链接的 JSON 数据、“显示全部”按钮和客户端脚本
+         */
+        private void writeHydration(StringBuilder out) {
+            if (previewCount == links.size()) {
+                return;
+            }
+            out.append("<script type=\"application/json\" class=\"tools-download-links__data\"")
+                    .append(" data-mode=\"").append(snapshot.cardTemplates().name()).append("\">[");
+            ItemSlots item = new ItemSlots(snapshot, owner);
+            for (int index = previewCount; index < links.size(); index++) {
+                if (index > previewCount) {
+                    out.append(',');
+                }
+                item.reset(links.get(index), index);
+                item.writeJson(out);
+            }
+            out.append("]</script><button class=\"tools-download-links__more\" type=\"button\">")
+                    .append("显示全部 ").append(links.size()).append(" 个链接</button>")
+                    .append("<script src=\"").append(HYDRATE_SCRIPT_PATH)
+                    .append("\" defer></script>");
         }
-        return str.replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&quot;", "\"")
-                .replace("&#39;", "'")
-                .replace("&#x27;", "'")
-                .replace("&apos;", "'")
-                .replace("&amp;", "&");
     }
 
-    private String escapeJsString(String str) {
-        if (str == null) {
-            return "";
+    /**
+     * 链接项模板插槽写入器，同一片段内的各链接复用同一实例
+     */
+    private final class ItemSlots implements CardTemplate.SlotWriter {
+
+        private final RenderSnapshot snapshot;
+        private final String owner;
+        private final boolean clickTracking;
+        private final boolean showCounts;
+        private int index;
+        private String url;
+        private String name;
+        private String source;
+        private String iconSource;
+        private String code;
+        private String linkHash;
+
+        ItemSlots(RenderSnapshot snapshot, String owner) {
+            this.snapshot = snapshot;
+            this.owner = owner;
+            this.clickTracking = owner != null && snapshot.downloadSetting().isClickTracking();
+            this.showCounts = owner != null && snapshot.downloadSetting().isShowDownloadCounts();
+        }
+
+        void reset(DownloadLink link, int index) {
+            this.index = index;
+            this.url = link.url();
+            this.name = blankToDefault(link.filename(), url);
+            this.source = snapshot.resolveSource(link.source(), url);
+            this.iconSource = snapshot.resolveIconSource(link.source(), url);
+            this.code = link.code();
+            this.linkHash = clickTracking || showCounts ? DownloadCounter.linkHash(url) : null;
+        }
+
+        @Override
+        public void write(int slot, StringBuilder out) {
+            switch (slot) {
+                case CardTemplates.ICON_CLASS -> writeIconClass(out);
+                case CardTemplates.SOURCE -> EscapeUtils.appendHtml(out, source);
+                case CardTemplates.ARIA_LABEL -> EscapeUtils.appendHtml(out.append("下载 "), name);
+                case CardTemplates.URL_JS -> EscapeUtils.appendJsString(out, url);
+                case CardTemplates.URL -> EscapeUtils.appendHrefInHtml(out, url);
+                case CardTemplates.COUNT_INFO -> writeCountInfo(out);
+                case CardTemplates.BEACON -> {
+                    if (clickTracking) {
+                        out.append("navigator.sendBeacon('")
+                                .append(DownloadCounter.clickPath(owner, linkHash)).append("');");
+                    }
+                }
+                case CardTemplates.PING -> {
+                    if (clickTracking) {
+                        out.append(" ping=\"")
+                                .append(DownloadCounter.clickPath(owner, linkHash)).append('"');
+                    }
+                }
+                case CardTemplates.DISPLAY_NAME -> EscapeUtils.appendHtml(out, name);
+                case CardTemplates.CODE_INFO -> {
+                    if (isNotBlank(code)) {
+                        EscapeUtils.appendHtml(out.append("  ·  提取码: "), code);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * 以 JSON 对象输出链接，字段与模板插槽对应，地址按当前模板的用法预先处理
+         */
+        void writeJson(StringBuilder out) {
+            boolean compact = snapshot.cardTemplates() == CardTemplates.COMPACT;
+            out.append("{\"u\":\"");
+            EscapeUtils.appendJsonStringInScript(out, compact ? EscapeUtils.safeHref(url) : url);
+            out.append("\",\"n\":\"");
+            EscapeUtils.appendJsonStringInScript(out, name);
+            out.append("\",\"s\":\"");
+            EscapeUtils.appendJsonStringInScript(out, source);
+            if (isNotBlank(code)) {
+                out.append("\",\"c\":\"");
+                EscapeUtils.appendJsonStringInScript(out, code);
+            }
+            out.append("\",\"i\":\"");
+            writeIconClass(out);
+            out.append('"');
+            if (clickTracking) {
+                out.append(",\"t\":\"").append(DownloadCounter.clickPath(owner, linkHash))
+                        .append('"');
+            }
+            if (showCounts) {
+                out.append(",\"k\":").append(downloadCounter.count(owner, linkHash));
+            }
+            out.append('}');
+        }
+
+        private void writeCountInfo(StringBuilder out) {
+            if (showCounts) {
+                out.append("  ·  下载 ").append(downloadCounter.count(owner, linkHash))
+                        .append(" 次");
+            }
+        }
+
+        private void writeIconClass(StringBuilder out) {
+            if (!snapshot.sharedIconRules()) {
+                out.append(DownloadLinksStyles.SOURCE_ICON_CLASS_PREFIX).append(index);
+                return;
+            }
+            String className = iconSource == null ? null
+                    : snapshot.sourceClassMap().get(iconSource);
+            if (className != null) {
+                out.append(DownloadLinksStyles.SOURCE_ICON_CLASS_PREFIX).append(className);
+            }
         }
-        return str.replace("\\", "\\\\")
-                .replace("'", "\\'")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
     }
 
-    private String escapeCssUrl(String str) {
-        if (str == null) {
-            return "";
+    /**
+     * 文档渲染结果
+     *
+     * @param html 渲染后的文档
+     * @param styleOffset 第一个渲染出内容的下载块在输出中的位置，即样式的注入位置，没有时为 -1
+     * @param containerIds 按出现顺序排列的根节点 id
+     * @param styleFound 文档中是否已包含样式
+     */
+    record RenderedDocument(String html, int styleOffset, Set<String> containerIds,
+                            boolean styleFound) {
+
+        static RenderedDocument unchanged(String html) {
+            return new RenderedDocument(html, -1, Collections.emptySet(), false);
         }
-        return str.replace("\\", "\\\\")
-                .replace("'", "\\'")
-                .replace("\"", "\\\"")
-                .replace("(", "\\(")
-                .replace(")", "\\)");
     }
 
-    private String str(Object o) {
-        return o == null ? "" : String.valueOf(o);
+    private boolean isBlank(String str) {
+        return str == null || str.isBlank();
+    }
+
+    private boolean isNotBlank(String str) {
+        return !isBlank(str);
+    }
+
+    private String blankToDefault(String str, String defaultValue) {
+        return isBlank(str) ? defaultValue : str;
     }
 }
@@ -0,0 +1,186 @@
+package site.muyin.downloadlinks.handle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 下载链接标签扫描器
+ * <p>单次正向扫描文档，定位 {@code <download-links>} 标签、其 {@code data-links} 属性值、
+ * 已存在的样式标记以及第一个 {@code </head>} 的位置，不做任何字符串拷贝。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+final class DownloadLinksScanner {
+
+    static final String OPEN_TAG = "<download-links";
+    static final String CLOSE_TAG = "</download-links>";
+    static final String HEAD_CLOSE = "</head>";
+    private static final String DATA_LINKS_ATTR = "data-links";
+
+    private static final ScanResult EMPTY = new ScanResult(Collections.emptyList(), false, -1);
+
+    private DownloadLinksScanner() {
+    }
+
+    /**
+     * 扫描文档
+     *
+     * @param input 文档内容
+     * @param styleId 样式标识，出现即视为页面已包含样式
+     * @return 扫描结果，未发现标签、样式标记和 {@code </head>} 时返回共享的空结果
+     */
+    static ScanResult scan(CharSequence input, String styleId) {
+        int len = input.length();
+        List<Tag> tags = null;
+        boolean styleFound = false;
+        boolean tagsExhausted = false;
+        int headIndex = -1;
+        char styleFirst = styleId.charAt(0);
+
+        int i = 0;
+        while (i < len) {
+            char c = input.charAt(i);
+            if (c == '<') {
+                if (!tagsExhausted && regionMatches(input, i, OPEN_TAG)
+                        && isTagNameEnd(input, i + OPEN_TAG.length())) {
+                    int attrStart = i + OPEN_TAG.length();
+                    int gt = indexOf(input, '>', attrStart);
+                    int close = gt < 0 ? -1 : indexOf(input, CLOSE_TAG, gt + 1, len);
+                    if (close < 0) {
+                        // 之后不可能再出现完整的标签，只继续查找样式和 </head>
+                        tagsExhausted = true;
+                        i++;
+                        continue;
+                    }
+                    int end = close + CLOSE_TAG.length();
+                    if (tags == null) {
+                        tags = new ArrayList<>();
+                    }
+                    tags.add(newTag(input, i, end, attrStart, gt));
+                    if (!styleFound && indexOf(input, styleId, i, end) >= 0) {
+                        styleFound = true;
+                    }
+                    i = end;
+                    continue;
+                }
+                if (headIndex < 0 && regionMatches(input, i, HEAD_CLOSE)) {
+                    headIndex = i;
+                }
+            } else if (c == styleFirst && !styleFound && regionMatches(input, i, styleId)) {
+                styleFound = true;
+            }
+            i++;
+        }
+
+        if (tags == null) {
+            // 没有标签时仍需带回样式标记，批量渲染据此判断页面是否已包含样式
+            return styleFound || headIndex >= 0
+                    ? new ScanResult(Collections.emptyList(), styleFound, headIndex) : EMPTY;
+        }
+        return new ScanResult(tags, styleFound, headIndex);
+    }
+
+    static Tag newTag(CharSequence input, int start, int end, int attrStart, int attrEnd) {
+        int from = attrStart;
+        while (true) {
+            int name = indexOf(input, DATA_LINKS_ATTR, from, attrEnd);
+            if (name < 0) {
+                return new Tag(start, end, -1, -1);
+            }
+            int p = skipWhitespace(input, name + DATA_LINKS_ATTR.length(), attrEnd);
+            if (p < attrEnd && input.charAt(p) == '=') {
+                p = skipWhitespace(input, p + 1, attrEnd);
+                if (p < attrEnd && input.charAt(p) == '"') {
+                    int quote = indexOf(input, '"', p + 1);
+                    if (quote >= 0 && quote < attrEnd) {
+                        return new Tag(start, end, p + 1, quote);
+                    }
+                }
+            }
+            from = name + 1;
+        }
+    }
+
+    static boolean isTagNameEnd(CharSequence input, int index) {
+        if (index >= input.length()) {
+            return false;
+        }
+        char c = input.charAt(index);
+        return !Character.isLetterOrDigit(c) && c != '_';
+    }
+
+    private static int skipWhitespace(CharSequence input, int from, int to) {
+        int i = from;
+        while (i < to && isWhitespace(input.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    static boolean regionMatches(CharSequence input, int offset, String target) {
+        int n = target.length();
+        if (offset < 0 || offset + n > input.length()) {
+            return false;
+        }
+        for (int k = 0; k < n; k++) {
+            if (input.charAt(offset + k) != target.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int indexOf(CharSequence input, char target, int from) {
+        for (int i = from, len = input.length(); i < len; i++) {
+            if (input.charAt(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(CharSequence input, String target, int from, int to) {
+        char first = target.charAt(0);
+        for (int i = from, last = to - target.length(); i <= last; i++) {
+            if (input.charAt(i) == first && regionMatches(input, i, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 标签位置
+     *
+     * @param start 标签起始位置（含）
+     * @param end 闭合标签结束位置（不含）
+     * @param dataStart {@code data-links} 属性值起始位置，不存在时为 -1
+     * @param dataEnd {@code data-links} 属性值结束位置（不含），不存在时为 -1
+     */
+    record Tag(int start, int end, int dataStart, int dataEnd) {
+
+        boolean hasData() {
+            return dataStart >= 0;
+        }
+    }
+
+    /**
+     * 扫描结果
+     *
+     * @param tags 按出现顺序排列的标签
+     * @param styleFound 文档中是否已存在样式标记
+     * @param headIndex 标签之外第一个 {@code </head>} 的位置，不存在时为 -1
+     */
+    record ScanResult(List<Tag> tags, boolean styleFound, int headIndex) {
+
+        boolean hasTags() {
+            return !tags.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package site.muyin.downloadlinks.handle;
+
+import site.muyin.downloadlinks.setting.DownloadSetting;
+import site.muyin.downloadlinks.util.EscapeUtils;
+
+import java.util.Map;
+
+/**
+ * 下载卡片样式
+ * <p>生成公共样式表，可内联到页面中，也可通过样式端点作为静态资源提供。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public final class DownloadLinksStyles {
+
+    /**
+     * 按下载源区分的图标类名前缀
+     */
+    public static final String SOURCE_ICON_CLASS_PREFIX = "tools-download-links__icon--";
+
+    /**
+     * 紧凑模板链接项类名
+     */
+    public static final String COMPACT_ITEM_CLASS = "tools-dl-item";
+
+    /**
+     * 紧凑模板页面共享的下载图标 {@code <symbol>} id
+     */
+    public static final String ICON_SYMBOL_ID = "tools-dl-download";
+
+    private DownloadLinksStyles() {
+    }
+
+    /**
+     * 生成公共样式表内容
+     */
+    public static String buildStylesheet(DownloadSetting downloadSetting) {
+        String lightModeSelector = downloadSetting.getLightModeSelector();
+        String darkModeSelector = downloadSetting.getDarkModeSelector();
+
+        return """
+                    .tools-download-links, .tools-download-links * { box-sizing: border-box; }
+                    .tools-download-links button { margin: 0; padding: 0; font: inherit; background: none; border: 0; color: inherit; }
+                
+                    .tools-download-links { border: 1px solid var(--tools-dl-border) !important; border-radius: 10px !important; background: var(--tools-dl-bg) !important; overflow: hidden !important; margin: 12px 0 !important; }
+                    .tools-download-links .tools-download-links__header { display: flex !important; align-items: center !important; gap: 6px !important; padding: 10px 12px !important; background: var(--tools-dl-header-bg) !important; border-bottom: 1px solid var(--tools-dl-border) !important; font-weight: 600 !important; color: var(--tools-dl-header-color) !important; font-size: 13px !important; }
+                    .tools-download-links .tools-download-links__list { margin: 0 !important; padding: 10px 12px !important; }
+                    .tools-download-links .tools-download-links__item { display: flex !important; align-items: center !important; justify-content: space-between !important; gap: 12px !important; padding: 12px 14px !important; border: 1px solid var(--tools-dl-border) !important; border-radius: 10px !important; margin: 10px 0 !important; background: var(--tools-dl-item-bg) !important; }
+                    .tools-download-links .tools-download-links__left { display: flex !important; align-items: center !important; gap: 10px !important; min-width: 0 !important; flex: 1 !important; }
+                    .tools-download-links .tools-download-links__icon { width: 40px !important; height: 40px !important; border-radius: 10px !important; background-color: var(--tools-dl-icon-bg) !important; flex-shrink: 0 !important; background-size: contain !important; background-position: center !important; background-repeat: no-repeat !important; display: block !important; }
+                    .tools-download-links .tools-download-links__info { display: grid !important; gap: 4px !important; min-width: 0 !important; flex: 1 !important; }
+                    .tools-download-links .tools-download-links__title { font-weight: 600 !important; white-space: nowrap !important; overflow: hidden !important; text-overflow: ellipsis !important; font-size: 14px !important; }
+                    .tools-download-links .tools-download-links__title-link { color: var(--tools-dl-title-link) !important; cursor: pointer !important; }
+                    .tools-download-links .tools-download-links__title-link:hover { color: var(--tools-dl-title-link-hover) !important; text-decoration: underline !important; }
+                    .tools-download-links .tools-download-links__meta { color: var(--tools-dl-meta) !important; font-size: 12px !important; }
+                    .tools-download-links button.tools-download-links__btn { margin-left: auto !important; display: inline-flex !important; align-items: center !important; justify-content: center !important; width: 36px !important; height: 36px !important; border-radius: 9999px !important; background: var(--tools-dl-btn-bg) !important; border: 1px solid var(--tools-dl-btn-border) !important; color: #ffffff !important; flex-shrink: 0 !important; transition: background .2s ease, border-color .2s ease !important; cursor: pointer !important; padding: 0 !important; font: inherit !important; }
+                    .tools-download-links button.tools-download-links__btn:hover { background: var(--tools-dl-btn-bg-hover) !important; border-color: var(--tools-dl-btn-border-hover) !important; }
+                    .tools-download-links button.tools-download-links__btn svg { width: 22px !important; height: 22px !important; }
+                
+                    :root {
+                        --tools-dl-border: #edf2f7;
+                        --tools-dl-bg: #fafcff;
+                        --tools-dl-header-bg: #f7fbff;
+                        --tools-dl-header-color: #0f172a;
+                        --tools-dl-item-bg: #ffffff;
+                        --tools-dl-icon-bg: #eef2f7;
+                        --tools-dl-title-link: #1d4ed8;
+                        --tools-dl-title-link-hover: #1e40af;
+                        --tools-dl-meta: #6b7280;
+                        --tools-dl-btn-bg: #60a5fa;
+                        --tools-dl-btn-border: #93c5fd;
+                        --tools-dl-btn-bg-hover: #3b82f6;
+                        --tools-dl-btn-border-hover: #60a5fa;
+                    }
+                
+                    %s {
+                        --tools-dl-border: #edf2f7;
+                        --tools-dl-bg: #fafcff;
+                        --tools-dl-header-bg: #f7fbff;
+                        --tools-dl-header-color: #0f172a;
+                        --tools-dl-item-bg: #ffffff;
+                        --tools-dl-icon-bg: #eef2f7;
+                        --tools-dl-title-link: #1d4ed8;
+                        --tools-dl-title-link-hover: #1e40af;
+                        --tools-dl-meta: #6b7280;
+                        --tools-dl-btn-bg: #60a5fa;
+                        --tools-dl-btn-border: #93c5fd;
+                        --tools-dl-btn-bg-hover: #3b82f6;
+                        --tools-dl-btn-border-hover: #60a5fa;
+                    }
+                    %s {
+                        --tools-dl-border: #374151;
+                        --tools-dl-bg: #1f2937;
+                        --tools-dl-header-bg: #374151;
+                        --tools-dl-header-color: #f9fafb;
+                        --tools-dl-item-bg: #374151;
+                        --tools-dl-icon-bg: #4b5563;
+                        --tools-dl-title-link: #60a5fa;
+                        --tools-dl-title-link-hover: #93c5fd;
+                        --tools-dl-meta: #9ca3af;
+                        --tools-dl-btn-bg: #3b82f6;
+                        --tools-dl-btn-border: #60a5fa;
+                        --tools-dl-btn-bg-hover: #2563eb;
+                        --tools-dl-btn-border-hover: #3b82f6;
+                    }
+                """.formatted(lightModeSelector, darkModeSelector);
+    }
+
+    /**
+     * 生成按下载源区分的图标规则
+     *
+     * @param sourceClassMap 下载源名称到类名后缀的映射
+     * @param sourceIconMap 下载源名称到图标地址的映射
+     */
+    public static String buildSourceIconRules(Map<String, String> sourceClassMap,
+                                              Map<String, String> sourceIconMap) {
+        StringBuilder rules = new StringBuilder();
+        sourceClassMap.forEach((name, className) -> {
+            rules.append("    .tools-download-links .").append(SOURCE_ICON_CLASS_PREFIX)
+                    .append(className).append(" { background-image: url('");
+            EscapeUtils.appendCssUrl(rules, sourceIconMap.get(name));
+            rules.append("') !important; }\n");
+        });
+        return rules.toString();
+    }
+
+    /**
+     * 生成紧凑模板的样式规则，与标准模板的外观保持一致
+     */
+    public static String buildCompactRules() {
+        return """
+                    .tools-download-links .tools-dl-item { display: flex !important; align-items: center !important; gap: 10px !important; padding: 12px 14px !important; border: 1px solid var(--tools-dl-border) !important; border-radius: 10px !important; margin: 10px 0 !important; background: var(--tools-dl-item-bg) !important; color: inherit !important; text-decoration: none !important; }
+                    .tools-download-links .tools-dl-item > i { width: 40px !important; height: 40px !important; border-radius: 10px !important; background-color: var(--tools-dl-icon-bg) !important; flex-shrink: 0 !important; background-size: contain !important; background-position: center !important; background-repeat: no-repeat !important; display: block !important; }
+                    .tools-download-links .tools-dl-item > span { display: grid !important; gap: 4px !important; min-width: 0 !important; flex: 1 !important; }
+                    .tools-download-links .tools-dl-item b { font-weight: 600 !important; white-space: nowrap !important; overflow: hidden !important; text-overflow: ellipsis !important; font-size: 14px !important; color: var(--tools-dl-title-link) !important; }
+                    .tools-download-links .tools-dl-item b:hover { color: var(--tools-dl-title-link-hover) !important; text-decoration: underline !important; }
+                    .tools-download-links .tools-dl-item small { color: var(--tools-dl-meta) !important; font-size: 12px !important; }
+                    .tools-download-links .tools-dl-item > svg { box-sizing: border-box !important; margin-left: 2px !important; width: 36px !important; height: 36px !important; padding: 6px !important; border-radius: 9999px !important; background: var(--tools-dl-btn-bg) !important; border: 1px solid var(--tools-dl-btn-border) !important; flex-shrink: 0 !important; transition: background .2s ease, border-color .2s ease !important; }
+                    .tools-download-links .tools-dl-item > svg:hover { background: var(--tools-dl-btn-bg-hover) !important; border-color: var(--tools-dl-btn-border-hover) !important; }
+                """;
+    }
+
+    /**
+     * 生成客户端渲染所需的“显示全部”按钮样式
+     */
+    public static String buildHydrationRules() {
+        return """
+                    .tools-download-links .tools-download-links__more { display: block !important; width: calc(100% - 24px) !important; margin: 0 12px 10px !important; padding: 8px 0 !important; border: 1px dashed var(--tools-dl-border) !important; border-radius: 10px !important; background: var(--tools-dl-item-bg) !important; color: var(--tools-dl-title-link) !important; font-size: 13px !important; cursor: pointer !important; }
+                    .tools-download-links .tools-download-links__more:hover { color: var(--tools-dl-title-link-hover) !important; }
+                """;
+    }
+
+    /**
+     * 生成紧凑模板共享的下载图标，随样式每页注入一次
+     */
+    public static String buildIconSymbol() {
+        return "<svg xmlns=\"http://www.w3.org/2000/svg\" style=\"display:none\""
+                + " aria-hidden=\"true\">"
+                + "<symbol id=\"" + ICON_SYMBOL_ID + "\" viewBox=\"0 0 24 24\" fill=\"none\">"
+                + "<path d=\"M12 3v10m0 0 4-4m-4 4-4-4M5 21h14\" stroke=\"#fff\" stroke-width=\"2\""
+                + " stroke-linecap=\"round\" stroke-linejoin=\"round\"/></symbol></svg>";
+    }
+
+    /**
+     * 生成内联样式块
+     */
+    public static String buildStyleBlock(String stylesheet) {
+        return "    <style id=\"" + DownloadLinksRenderer.STYLE_ID + "\">"
+                + DownloadLinksRenderer.STYLE_MARKER + "\n"
+                + stylesheet
+                + "    </style>\n";
+    }
+
+    /**
+     * 生成引用外部样式表的 {@code <link>} 标签
+     */
+    public static String buildStylesheetLink(String stylesheetHash) {
+        return "<link rel=\"stylesheet\" id=\"" + DownloadLinksRenderer.STYLE_ID + "\" href=\""
+                + stylesheetPath(stylesheetHash) + "\">";
+    }
+
+    /**
+     * 外部样式表地址，内容哈希作为文件名，便于长期缓存
+     */
+    public static String stylesheetPath(String stylesheetHash) {
+        return "/apis/api.download-links.muyin.site/v1alpha1/styles/" + stylesheetHash + ".css";
+    }
+}
@@ -1,28 +1,57 @@
 package site.muyin.downloadlinks.handle;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 import run.halo.app.theme.ReactivePostContentHandler;
+import run.halo.app.theme.ReactivePostContentHandler.PostContentContext;
+import site.muyin.downloadlinks.extension.RenderedContent;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+import site.muyin.downloadlinks.prerender.ContentPrerenderer;
 
 @Component
-@RequiredArgsConstructor
-public class PostDownloadLinksContentHandler implements ReactivePostContentHandler {
+public class PostDownloadLinksContentHandler
+        extends AbstractDownloadLinksContentHandler<PostContentContext>
+        implements ReactivePostContentHandler {
 
-    private final DownloadLinksRenderer renderer;
+    public PostDownloadLinksContentHandler(DownloadLinksRenderer renderer,
+                                           ContentPrerenderer prerenderer,
+                                           DownloadLinksMetrics metrics) {
+        super(renderer, prerenderer, metrics, RenderedContent.OwnerKind.POST);
+    }
 
     @Override
     public Mono<PostContentContext> handle(PostContentContext postContent) {
-        String raw = postContent.getRaw();
-        String content = postContent.getContent();
-
-        return renderer.render(raw)
-                .flatMap(renderedRaw -> renderer.render(content)
-                        .map(renderedContent -> {
-                            postContent.setRaw(renderedRaw);
-                            postContent.setContent(renderedContent);
-                            return postContent;
-                        }));
+        return doHandle(postContent);
+    }
+
+    @Override
+    protected String getOwnerName(PostContentContext context) {
+        return context.getPost().getMetadata().getName();
+    }
+
+    @Override
+    protected String getReleaseSnapshot(PostContentContext context) {
+        return context.getPost().getSpec().getReleaseSnapshot();
+    }
+
+    @Override
+    protected String getRaw(PostContentContext context) {
+        return context.getRaw();
+    }
+
+    @Override
+    protected String getContent(PostContentContext context) {
+        return context.getContent();
+    }
+
+    @Override
+    protected void setRaw(PostContentContext context, String raw) {
+        context.setRaw(raw);
+    }
+
+    @Override
+    protected void setContent(PostContentContext context, String content) {
+        context.setContent(content);
     }
 }
 
@@ -0,0 +1,110 @@
+package site.muyin.downloadlinks.handle;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 渲染调度器
+ * <p>大文档的渲染提交到独立的有界调度器执行，避免长时间占用 Netty 事件循环线程。
+ * 线程数由设置决定，排队任务超过上限时以 {@link RenderRejectedException} 结束，
+ * 由调用方决定如何降级，不会在当前线程（可能是事件循环线程）上渲染。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Component
+@RequiredArgsConstructor
+public class RenderScheduler implements DisposableBean {
+
+    /**
+     * 每个线程允许排队的任务数
+     */
+    private static final int QUEUED_TASKS_PER_THREAD = 256;
+
+    private static final String THREAD_NAME_PREFIX = "download-links-render";
+
+    private final DownloadLinksMetrics metrics;
+
+    private int concurrency;
+    private Scheduler scheduler;
+
+    /**
+     * 在渲染调度器上执行任务
+     *
+     * @param task 渲染任务
+     * @param concurrency 并发线程数，不大于 0 时使用 CPU 核数
+     * @return 渲染结果，排队已满时以 {@link RenderRejectedException} 结束
+     */
+    public <T> Mono<T> offload(Supplier<T> task, int concurrency) {
+        return Mono.create(sink -> {
+            Disposable scheduled;
+            try {
+                scheduled = scheduler(concurrency).schedule(() -> run(task, sink));
+            } catch (RejectedExecutionException e) {
+                // 只处理提交时的拒绝，任务自身抛出的异常照常传递
+                metrics.recordOffloadRejected();
+                sink.error(new RenderRejectedException(e));
+                return;
+            }
+            metrics.recordOffload();
+            sink.onCancel(scheduled);
+        });
+    }
+
+    private static <T> void run(Supplier<T> task, MonoSink<T> sink) {
+        T value;
+        try {
+            value = task.get();
+        } catch (Throwable e) {
+            Exceptions.throwIfJvmFatal(e);
+            sink.error(e);
+            return;
+        }
+        sink.success(value);
+    }
+
+    private synchronized Scheduler scheduler(int concurrency) {
+        int threads = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        if (scheduler != null && this.concurrency == threads) {
+            return scheduler;
+        }
+        // 并发数变更时重建调度器，旧调度器执行完已提交的任务后关闭
+        Scheduler previous = scheduler;
+        this.scheduler = Schedulers.newBoundedElastic(threads, threads * QUEUED_TASKS_PER_THREAD,
+                THREAD_NAME_PREFIX);
+        this.concurrency = threads;
+        if (previous != null) {
+            previous.disposeGracefully().subscribe();
+        }
+        return scheduler;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (scheduler != null) {
+            scheduler.dispose();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 渲染调度器排队已满，任务未执行
+     */
+    public static class RenderRejectedException extends RuntimeException {
+
+        RenderRejectedException(RejectedExecutionException cause) {
+            super("Render queue is full", cause);
+        }
+    }
+}
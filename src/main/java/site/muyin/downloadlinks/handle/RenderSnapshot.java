@@ -0,0 +1,250 @@
+package site.muyin.downloadlinks.handle;
+
+import site.muyin.downloadlinks.setting.DownloadSetting;
+import site.muyin.downloadlinks.setting.PerformanceSetting;
+import site.muyin.downloadlinks.setting.PerformanceSetting.MarkupMode;
+import site.muyin.downloadlinks.util.HashUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 渲染设置快照
+ * <p>由插件设置一次性预计算得到的不可变数据，仅在设置变更时重建，渲染时直接读取。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public final class RenderSnapshot {
+
+    private final long version;
+    private final String fingerprint;
+    private final DownloadSetting downloadSetting;
+    private final PerformanceSetting performanceSetting;
+    private final Map<String, String> sourceIconMap;
+    private final Map<String, String> sourceClassMap;
+    private final SourceHostIndex sourceHostIndex;
+    private final String stylesheet;
+    private final String stylesheetHash;
+    private final String styleBlock;
+    private final CardTemplates cardTemplates;
+
+    private RenderSnapshot(long version, String fingerprint, DownloadSetting downloadSetting,
+                           PerformanceSetting performanceSetting) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.downloadSetting = downloadSetting;
+        this.performanceSetting = performanceSetting;
+        this.sourceIconMap = buildSourceIconMap(downloadSetting);
+        this.sourceClassMap = buildSourceClassMap(downloadSetting, sourceIconMap);
+        this.sourceHostIndex = SourceHostIndex.compile(downloadSetting.getDownloadSourceList());
+        boolean compact = performanceSetting.getMarkupMode() == MarkupMode.COMPACT;
+        String baseStylesheet = DownloadLinksStyles.buildStylesheet(downloadSetting)
+                + (compact ? DownloadLinksStyles.buildCompactRules() : "")
+                + (performanceSetting.getHydrateThreshold() > 0
+                ? DownloadLinksStyles.buildHydrationRules() : "");
+        this.stylesheet = baseStylesheet
+                + DownloadLinksStyles.buildSourceIconRules(sourceClassMap, sourceIconMap);
+        this.stylesheetHash = Long.toHexString(HashUtils.fnv1a64(stylesheet));
+        // 标准模板内联时图标规则按容器生成，样式块中只需公共样式
+        String style = performanceSetting.isExternalStylesheet()
+                ? DownloadLinksStyles.buildStylesheetLink(stylesheetHash)
+                : DownloadLinksStyles.buildStyleBlock(compact ? stylesheet : baseStylesheet);
+        this.styleBlock = compact ? style + DownloadLinksStyles.buildIconSymbol() : style;
+        this.cardTemplates = compact ? CardTemplates.COMPACT : CardTemplates.STANDARD;
+    }
+
+    public static RenderSnapshot create(long version, String fingerprint,
+                                        DownloadSetting downloadSetting,
+                                        PerformanceSetting performanceSetting) {
+        return new RenderSnapshot(version, fingerprint, downloadSetting, performanceSetting);
+    }
+
+    /**
+     * 快照版本，每次重建单调递增
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 设置指纹，相同的设置总是得到相同的指纹，可用于持久化的渲染结果校验
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    public DownloadSetting downloadSetting() {
+        return downloadSetting;
+    }
+
+    public PerformanceSetting performanceSetting() {
+        return performanceSetting;
+    }
+
+    /**
+     * 下载源名称到图标地址的映射
+     */
+    public Map<String, String> sourceIconMap() {
+        return sourceIconMap;
+    }
+
+    /**
+     * 下载源名称到图标类名后缀的映射，仅包含配置了图标的下载源
+     */
+    public Map<String, String> sourceClassMap() {
+        return sourceClassMap;
+    }
+
+    /**
+     * 链接的下载源：填写了下载源时直接使用，否则按链接域名识别，无法识别时返回填写的值
+     */
+    public String resolveSource(String source, String url) {
+        if (isNotBlank(source) || sourceHostIndex.isEmpty()) {
+            return source;
+        }
+        String detected = sourceHostIndex.match(url);
+        return detected != null ? detected : source;
+    }
+
+    /**
+     * 链接图标对应的下载源：填写的下载源配置了图标时直接使用，否则按链接域名识别，
+     * 填错或未配置的下载源也能显示图标，显示的名称仍以 {@link #resolveSource} 为准
+     *
+     * @return 没有可用图标时返回 {@code null}
+     */
+    public String resolveIconSource(String source, String url) {
+        if (source != null && sourceIconMap.containsKey(source)) {
+            return source;
+        }
+        if (sourceHostIndex.isEmpty()) {
+            return null;
+        }
+        String detected = sourceHostIndex.match(url);
+        return detected != null && sourceIconMap.containsKey(detected) ? detected : null;
+    }
+
+    /**
+     * 是否使用外部样式表
+     */
+    public boolean externalStylesheet() {
+        return performanceSetting.isExternalStylesheet();
+    }
+
+    /**
+     * 图标是否按下载源类名设置，此时规则已包含在页面样式中，不再为每个容器生成
+     */
+    public boolean sharedIconRules() {
+        return externalStylesheet() || cardTemplates == CardTemplates.COMPACT;
+    }
+
+    /**
+     * 渲染结果是否与所属内容有关：统计下载次数时包含上报地址，显示下载次数时包含次数
+     */
+    public boolean ownerDependent() {
+        return downloadSetting.isClickTracking() || downloadSetting.isShowDownloadCounts();
+    }
+
+    /**
+     * 是否使用预渲染结果，显示下载次数时预渲染结果会过期，因此不使用
+     */
+    public boolean prerenderEnabled() {
+        return performanceSetting.isPrerender() && !downloadSetting.isShowDownloadCounts();
+    }
+
+    /**
+     * 完整的公共样式表内容，包含按下载源区分的图标规则
+     */
+    public String stylesheet() {
+        return stylesheet;
+    }
+
+    /**
+     * 样式表内容哈希
+     */
+    public String stylesheetHash() {
+        return stylesheetHash;
+    }
+
+    /**
+     * 注入页面的样式：内联样式块，或引用外部样式表的 {@code <link>} 标签
+     */
+    public String styleBlock() {
+        return styleBlock;
+    }
+
+    /**
+     * 当前设置使用的卡片模板
+     */
+    public CardTemplates cardTemplates() {
+        return cardTemplates;
+    }
+
+    private static Map<String, String> buildSourceIconMap(DownloadSetting downloadSetting) {
+        List<DownloadSetting.DownloadSource> sourceList = downloadSetting.getDownloadSourceList();
+        if (sourceList == null || sourceList.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> map = new HashMap<>();
+        for (DownloadSetting.DownloadSource source : sourceList) {
+            if (isNotBlank(source.getName()) && isNotBlank(source.getIcon())) {
+                map.put(source.getName(), source.getIcon());
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static Map<String, String> buildSourceClassMap(DownloadSetting downloadSetting,
+                                                           Map<String, String> sourceIconMap) {
+        List<DownloadSetting.DownloadSource> sourceList = downloadSetting.getDownloadSourceList();
+        if (sourceList == null || sourceList.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < sourceList.size(); i++) {
+            String name = sourceList.get(i).getName();
+            if (!sourceIconMap.containsKey(name) || map.containsKey(name)) {
+                continue;
+            }
+            // 优先使用名称，名称不含可用字符（如中文）时使用图标文件名
+            String className = toClassName(name);
+            if (className.isEmpty()) {
+                String icon = sourceIconMap.get(name);
+                String fileName = icon.substring(icon.lastIndexOf('/') + 1);
+                int dot = fileName.lastIndexOf('.');
+                className = toClassName(dot > 0 ? fileName.substring(0, dot) : fileName);
+            }
+            if (className.isEmpty() || !used.add(className)) {
+                className = className + "s" + i;
+                used.add(className);
+            }
+            map.put(name, className);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static String toClassName(String str) {
+        StringBuilder sb = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            } else if (c >= 'A' && c <= 'Z') {
+                sb.append((char) (c + ('a' - 'A')));
+            } else if ((c == '-' || c == '_') && !sb.isEmpty()) {
+                sb.append('-');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isNotBlank(String str) {
+        return str != null && !str.isBlank();
+    }
+}
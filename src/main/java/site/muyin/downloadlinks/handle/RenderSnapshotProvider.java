@@ -0,0 +1,127 @@
+package site.muyin.downloadlinks.handle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.plugin.PluginConfigUpdatedEvent;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+import site.muyin.downloadlinks.setting.DownloadSetting;
+import site.muyin.downloadlinks.setting.PerformanceSetting;
+import site.muyin.downloadlinks.util.HashUtils;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 渲染设置快照提供者
+ * <p>首次使用时从设置中加载快照，之后仅在插件配置变更时重建，渲染时直接读取当前快照。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Component
+@RequiredArgsConstructor
+public class RenderSnapshotProvider {
+
+    private final ReactiveSettingFetcher settingFetcher;
+    private final ObjectMapper objectMapper;
+    private final RenderedFragmentCache fragmentCache;
+
+    private final AtomicReference<RenderSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * 获取当前快照，尚未加载时从设置中加载
+     */
+    public Mono<RenderSnapshot> get() {
+        RenderSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            return Mono.just(snapshot);
+        }
+        return load();
+    }
+
+    private Mono<RenderSnapshot> load() {
+        return Mono.zip(
+                        settingFetcher.fetch(DownloadSetting.GROUP, DownloadSetting.class)
+                                .defaultIfEmpty(new DownloadSetting()),
+                        settingFetcher.fetch(PerformanceSetting.GROUP, PerformanceSetting.class)
+                                .defaultIfEmpty(new PerformanceSetting()))
+                .map(settings -> {
+                    RenderSnapshot loaded = newSnapshot(settings.getT1(), settings.getT2());
+                    // 加载期间若已被配置变更事件抢先设置，则以较新的快照为准
+                    if (current.compareAndSet(null, loaded)) {
+                        onSwitched(loaded);
+                        return loaded;
+                    }
+                    return current.get();
+                });
+    }
+
+    /**
+     * 先于其他监听器切换快照，使其读取到的都是新设置
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPluginConfigUpdated(PluginConfigUpdatedEvent event) {
+        Map<String, JsonNode> config = event.getNewConfig();
+        DownloadSetting downloadSetting = convert(config, DownloadSetting.GROUP,
+                DownloadSetting.class, new DownloadSetting());
+        PerformanceSetting performanceSetting = convert(config, PerformanceSetting.GROUP,
+                PerformanceSetting.class, new PerformanceSetting());
+        RenderSnapshot snapshot = newSnapshot(downloadSetting, performanceSetting);
+        current.set(snapshot);
+        onSwitched(snapshot);
+    }
+
+    private RenderSnapshot newSnapshot(DownloadSetting downloadSetting,
+                                       PerformanceSetting performanceSetting) {
+        return RenderSnapshot.create(versions.incrementAndGet(),
+                fingerprint(downloadSetting, performanceSetting), downloadSetting,
+                performanceSetting);
+    }
+
+    /**
+     * 由设置内容计算的指纹，与版本号不同，重启后相同的设置仍得到相同的指纹
+     */
+    private String fingerprint(DownloadSetting downloadSetting,
+                               PerformanceSetting performanceSetting) {
+        try {
+            String settings = objectMapper.writeValueAsString(downloadSetting)
+                    + objectMapper.writeValueAsString(performanceSetting);
+            return Long.toHexString(HashUtils.fnv1a64(settings));
+        } catch (JsonProcessingException e) {
+            // 无法计算时使用随机值，使已有的预渲染结果全部失效
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private void onSwitched(RenderSnapshot snapshot) {
+        fragmentCache.configure(snapshot.version(),
+                snapshot.performanceSetting().getRenderCacheMaxSize());
+    }
+
+    private <T> T convert(Map<String, JsonNode> config, String group, Class<T> type,
+                          T defaultValue) {
+        JsonNode node = config == null ? null : config.get(group);
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return defaultValue;
+        }
+        try {
+            if (node.isTextual()) {
+                return objectMapper.readValue(node.asText(), type);
+            }
+            return objectMapper.treeToValue(node, type);
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package site.muyin.downloadlinks.handle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+import site.muyin.downloadlinks.counter.DownloadCounter;
+import site.muyin.downloadlinks.extension.RenderedContent.OwnerKind;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+import site.muyin.downloadlinks.setting.DownloadSetting;
+import site.muyin.downloadlinks.util.EscapeUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 渲染预热
+ * <p>插件启动后在后台加载设置快照，并用内置的示例内容反复渲染，使设置读取、样式构建、
+ * JSON 类型解析和即时编译在首批请求到来前完成。预热在时间上限内结束，完成后输出日志
+ * 并设置 {@code download.links.warmup.ready} 指标。</p>
+ * <p>预热使用独立的渲染器，不写入片段缓存，也不计入渲染指标；编译结果按方法共享，
+ * 对线上渲染器同样有效。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RenderWarmup implements DisposableBean {
+
+    /**
+     * 示例内容最多渲染的轮数，足以使渲染路径上的方法完成编译
+     */
+    private static final int MAX_ROUNDS = 2_000;
+
+    private static final String SAMPLE_OWNER = OwnerKind.POST.entryName("download-links-warmup");
+
+    private static final String[] SAMPLE_URLS = {
+        "https://pan.baidu.com/s/1AbCdEfGhIjKlMn",
+        "https://www.lanzoui.com/iAbCdEf",
+        "https://github.com/halo-dev/halo/releases/download/v2.20.0/halo-2.20.0.jar",
+        "https://example.com/files/sample.zip"
+    };
+
+    private static final String PARAGRAPH = "<p>Halo 是一款强大易用的开源建站工具，这里是用于预热的"
+            + "<strong>示例段落</strong>，包含 <a href=\"/archives/sample\">链接</a>。</p>\n";
+
+    private final DownloadLinksParser linksParser;
+    private final RenderSnapshotProvider snapshotProvider;
+    private final RenderScheduler renderScheduler;
+    private final DownloadCounter downloadCounter;
+    private final DownloadLinksMetrics metrics;
+
+    private volatile boolean cancelled;
+    private Disposable running;
+
+    /**
+     * 在后台开始预热，立即返回
+     */
+    public synchronized void start() {
+        if (running != null) {
+            return;
+        }
+        cancelled = false;
+        metrics.resetWarmup();
+        long startNanos = System.nanoTime();
+        running = snapshotProvider.get()
+                .publishOn(Schedulers.boundedElastic())
+                .map(snapshot -> warmup(snapshot, startNanos))
+                .subscribe(rounds -> {
+                    Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+                    metrics.recordWarmup(elapsed);
+                    log.info("Download links render warm-up finished, {} rounds in {} ms",
+                            rounds, elapsed.toMillis());
+                }, e -> log.warn("Download links render warm-up failed", e));
+    }
+
+    /**
+     * 停止尚未结束的预热
+     */
+    public synchronized void stop() {
+        cancelled = true;
+        if (running != null) {
+            running.dispose();
+            running = null;
+        }
+        metrics.resetWarmup();
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    /**
+     * 反复渲染示例内容，直到达到轮数、超出时间上限或被停止
+     *
+     * @return 完成的轮数
+     */
+    private int warmup(RenderSnapshot snapshot, long startNanos) {
+        long budget = Duration.ofSeconds(snapshot.performanceSetting().getWarmupBudget())
+                .toNanos();
+        if (budget <= 0) {
+            return 0;
+        }
+        RenderedFragmentCache cache = new RenderedFragmentCache();
+        DownloadLinksRenderer renderer = new DownloadLinksRenderer(linksParser, snapshotProvider,
+                cache, new DownloadLinksMetrics(new SimpleMeterRegistry(), cache),
+                renderScheduler, downloadCounter);
+        List<String> samples = sampleDocuments(snapshot);
+        int rounds = 0;
+        while (rounds < MAX_ROUNDS && !cancelled && System.nanoTime() - startNanos < budget) {
+            for (String sample : samples) {
+                renderer.render(sample, snapshot, SAMPLE_OWNER).block();
+            }
+            rounds++;
+        }
+        return rounds;
+    }
+
+    /**
+     * 生成示例内容：单个下载块的文章、含 {@code <head>} 和多个下载块的页面、不含下载块的文章
+     */
+    private static List<String> sampleDocuments(RenderSnapshot snapshot) {
+        List<String> sources = new ArrayList<>();
+        List<DownloadSetting.DownloadSource> sourceList =
+                snapshot.downloadSetting().getDownloadSourceList();
+        if (sourceList != null) {
+            for (DownloadSetting.DownloadSource source : sourceList) {
+                if (source.getName() != null && !source.getName().isBlank()) {
+                    sources.add(source.getName());
+                }
+            }
+        }
+        if (sources.isEmpty()) {
+            sources.add("GitHub");
+        }
+
+        StringBuilder article = new StringBuilder();
+        article.append(PARAGRAPH).append(PARAGRAPH);
+        appendBlock(article, 0, 3, sources);
+        article.append(PARAGRAPH);
+
+        StringBuilder page = new StringBuilder("<!DOCTYPE html>\n<html><head>"
+                + "<meta charset=\"utf-8\"><title>warm-up</title></head><body>\n");
+        for (int block = 0; block < 3; block++) {
+            page.append(PARAGRAPH);
+            appendBlock(page, block, 16, sources);
+        }
+        // 重复的下载块，覆盖根节点 id 去重
+        appendBlock(page, 0, 16, sources);
+        page.append("</body></html>\n");
+
+        return List.of(article.toString(), page.toString(), PARAGRAPH.repeat(8));
+    }
+
+    private static void appendBlock(StringBuilder out, int block, int links,
+                                    List<String> sources) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < links; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"url\":\"");
+            EscapeUtils.appendJsonStringInScript(json,
+                    SAMPLE_URLS[i % SAMPLE_URLS.length] + "?block=" + block + "&i=" + i);
+            json.append("\",\"filename\":\"");
+            EscapeUtils.appendJsonStringInScript(json, "示例文件 & 说明 <v" + i + ">.zip");
+            // 部分链接不填写下载源，覆盖按域名识别
+            if (i % 3 != 0) {
+                json.append("\",\"source\":\"");
+                EscapeUtils.appendJsonStringInScript(json, sources.get(i % sources.size()));
+            }
+            if (i % 2 == 0) {
+                json.append("\",\"code\":\"ab").append(i);
+            }
+            json.append("\"}");
+        }
+        json.append(']');
+        out.append("<download-links data-links=\"");
+        EscapeUtils.appendHtml(out, json.toString());
+        out.append("\"></download-links>\n");
+    }
+}
@@ -0,0 +1,177 @@
+package site.muyin.downloadlinks.handle;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.springframework.stereotype.Component;
+import site.muyin.downloadlinks.util.HashUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已渲染下载卡片片段缓存
+ * <p>以 {@code data-links} 内容哈希和设置版本作为键，按估算内存占用淘汰。
+ * 条目同时保存原始内容，命中时逐字符比对，哈希碰撞按未命中处理。</p>
+ * <p>底层为 Caffeine 按权重淘汰的并发缓存，读写和指标读取都不持有全局锁。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Component
+public class RenderedFragmentCache {
+
+    /**
+     * 每个条目除片段字符外的估算固定开销（字节）
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    /**
+     * 淘汰在调用线程上执行，保证写入返回时占用已不超过上限
+     */
+    private final Cache<Key, Fragment> entries = Caffeine.newBuilder()
+            .maximumWeight(0)
+            .weigher(RenderedFragmentCache::weigh)
+            .executor(Runnable::run)
+            .<Key, Fragment>evictionListener((key, fragment, cause) -> evictionCount.increment())
+            .build();
+    private final Policy.Eviction<Key, Fragment> eviction =
+            entries.policy().eviction().orElseThrow();
+
+    private volatile long maxWeight;
+    private volatile long settingsVersion;
+
+    /**
+     * 查询缓存
+     *
+     * @param payload 反转义后的 {@code data-links} 内容，与条目保存的内容比对
+     * @param length 内容长度
+     * @return 命中的片段，未命中返回 {@code null}
+     */
+    public Fragment get(Key key, char[] payload, int length) {
+        Fragment fragment = key.settingsVersion() == settingsVersion
+                ? entries.getIfPresent(key) : null;
+        if (fragment == null || !fragment.matches(payload, length)) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return fragment;
+    }
+
+    /**
+     * 写入缓存，超过内存上限时淘汰最久未使用的条目
+     */
+    public void put(Key key, Fragment fragment) {
+        if (key.settingsVersion() != settingsVersion || weigh(key, fragment) > maxWeight) {
+            return;
+        }
+        entries.put(key, fragment);
+    }
+
+    /**
+     * 切换到新的设置版本并清空缓存，早于当前版本的调用会被忽略
+     *
+     * @param settingsVersion 当前设置版本
+     * @param maxSizeKb 缓存内存上限（KB），不大于 0 时关闭缓存
+     */
+    public synchronized void configure(long settingsVersion, int maxSizeKb) {
+        if (settingsVersion < this.settingsVersion) {
+            return;
+        }
+        if (settingsVersion > this.settingsVersion) {
+            this.settingsVersion = settingsVersion;
+            entries.invalidateAll();
+        }
+        this.maxWeight = Math.max(0, maxSizeKb) * 1024L;
+        eviction.setMaximum(maxWeight);
+    }
+
+    public boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * 累计命中次数
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 累计未命中次数，包括内容比对不一致的情况
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 累计因超过内存上限被淘汰的条目数，清空缓存不计入
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * 当前估算内存占用（字节）
+     */
+    public long weight() {
+        return eviction.weightedSize().orElse(0);
+    }
+
+    private static int weigh(Key key, Fragment fragment) {
+        int ownerLength = key.owner() == null ? 0 : key.owner().length();
+        long weight = ENTRY_OVERHEAD + 2L * (fragment.html().length()
+                + fragment.containerId().length() + fragment.payload().length + ownerLength);
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 计算 {@code data-links} 内容的哈希
+     */
+    public static long hash(char[] payload, int length) {
+        return HashUtils.fnv1a64(payload, length);
+    }
+
+    /**
+     * 缓存键
+     *
+     * @param settingsVersion 渲染时的设置版本
+     * @param payloadHash {@code data-links} 内容哈希
+     * @param payloadLength {@code data-links} 内容长度
+     * @param owner 渲染结果与所属内容有关时为内容标识，否则为 {@code null}
+     * @param countsVersion 显示下载次数时为所属内容的下载次数版本，否则为 0
+     */
+    public record Key(long settingsVersion, long payloadHash, int payloadLength, String owner,
+                      long countsVersion) {
+    }
+
+    /**
+     * 已渲染片段
+     *
+     * @param containerId 片段根节点 id
+     * @param html 片段内容
+     * @param linkCount 片段中的链接数量
+     * @param payload 渲染时的 {@code data-links} 内容，用于排除哈希碰撞
+     */
+    public record Fragment(String containerId, String html, int linkCount, char[] payload) {
+
+        /**
+         * 是否由相同的 {@code data-links} 内容渲染得到
+         */
+        public boolean matches(char[] data, int length) {
+            return Arrays.equals(payload, 0, payload.length, data, 0, length);
+        }
+    }
+}
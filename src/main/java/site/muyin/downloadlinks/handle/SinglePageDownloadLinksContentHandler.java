@@ -1,28 +1,57 @@
 package site.muyin.downloadlinks.handle;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 import run.halo.app.theme.ReactiveSinglePageContentHandler;
+import run.halo.app.theme.ReactiveSinglePageContentHandler.SinglePageContentContext;
+import site.muyin.downloadlinks.extension.RenderedContent;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+import site.muyin.downloadlinks.prerender.ContentPrerenderer;
 
 @Component
-@RequiredArgsConstructor
-public class SinglePageDownloadLinksContentHandler implements ReactiveSinglePageContentHandler {
-
-    private final DownloadLinksRenderer renderer;
+public class SinglePageDownloadLinksContentHandler
+        extends AbstractDownloadLinksContentHandler<SinglePageContentContext>
+        implements ReactiveSinglePageContentHandler {
+
+    public SinglePageDownloadLinksContentHandler(DownloadLinksRenderer renderer,
+                                                 ContentPrerenderer prerenderer,
+                                                 DownloadLinksMetrics metrics) {
+        super(renderer, prerenderer, metrics, RenderedContent.OwnerKind.SINGLE_PAGE);
+    }
 
     @Override
     public Mono<SinglePageContentContext> handle(SinglePageContentContext singlePageContent) {
-        String raw = singlePageContent.getRaw();
-        String content = singlePageContent.getContent();
-
-        return renderer.render(raw)
-                .flatMap(renderedRaw -> renderer.render(content)
-                        .map(renderedContent -> {
-                            singlePageContent.setRaw(renderedRaw);
-                            singlePageContent.setContent(renderedContent);
-                            return singlePageContent;
-                        }));
+        return doHandle(singlePageContent);
+    }
+
+    @Override
+    protected String getOwnerName(SinglePageContentContext context) {
+        return context.getSinglePage().getMetadata().getName();
+    }
+
+    @Override
+    protected String getReleaseSnapshot(SinglePageContentContext context) {
+        return context.getSinglePage().getSpec().getReleaseSnapshot();
+    }
+
+    @Override
+    protected String getRaw(SinglePageContentContext context) {
+        return context.getRaw();
+    }
+
+    @Override
+    protected String getContent(SinglePageContentContext context) {
+        return context.getContent();
+    }
+
+    @Override
+    protected void setRaw(SinglePageContentContext context, String raw) {
+        context.setRaw(raw);
+    }
+
+    @Override
+    protected void setContent(SinglePageContentContext context, String content) {
+        context.setContent(content);
     }
 }
 
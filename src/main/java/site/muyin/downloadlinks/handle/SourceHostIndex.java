@@ -0,0 +1,241 @@
+package site.muyin.downloadlinks.handle;
+
+import site.muyin.downloadlinks.setting.DownloadSetting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 下载源域名索引
+ * <p>将各下载源配置的域名规则按标签倒序编译为一棵前缀树，识别链接所属下载源时
+ * 只需从顶级域名开始逐个标签向下查找，耗时与域名长度成正比，不使用正则。</p>
+ * <p>支持的规则：</p>
+ * <ul>
+ *     <li>{@code github.com}：匹配该域名及其子域名</li>
+ *     <li>{@code *.lanzou.com}：只匹配子域名，最左侧的 {@code *} 可代表一级或多级标签</li>
+ *     <li>{@code lanzou*.com}：标签内的 {@code *} 匹配任意字符，每个标签最多一个</li>
+ * </ul>
+ * <p>多条规则同时匹配时，匹配标签数多的优先，相同时按下载源的配置顺序。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public final class SourceHostIndex {
+
+    private static final SourceHostIndex EMPTY = new SourceHostIndex(new Node());
+
+    private final Node root;
+
+    private SourceHostIndex(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 编译下载源配置的域名规则，没有规则时返回空索引
+     */
+    public static SourceHostIndex compile(List<DownloadSetting.DownloadSource> sourceList) {
+        if (sourceList == null || sourceList.isEmpty()) {
+            return EMPTY;
+        }
+        Node root = new Node();
+        boolean empty = true;
+        for (int order = 0; order < sourceList.size(); order++) {
+            DownloadSetting.DownloadSource source = sourceList.get(order);
+            String name = source.getName();
+            if (name == null || name.isBlank() || source.getHosts() == null) {
+                continue;
+            }
+            for (String pattern : splitPatterns(source.getHosts())) {
+                empty &= !insert(root, pattern, new Match(name, order));
+            }
+        }
+        return empty ? EMPTY : new SourceHostIndex(root);
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    /**
+     * 识别链接所属的下载源
+     *
+     * @return 下载源名称，无法识别时返回 {@code null}
+     */
+    public String match(String url) {
+        if (isEmpty() || url == null) {
+            return null;
+        }
+        String[] labels = hostLabels(url);
+        if (labels == null) {
+            return null;
+        }
+        Match[] best = new Match[1];
+        int[] bestDepth = {-1};
+        walk(root, labels, labels.length - 1, 0, best, bestDepth);
+        return best[0] == null ? null : best[0].name();
+    }
+
+    private static void walk(Node node, String[] labels, int index, int depth, Match[] best,
+                             int[] bestDepth) {
+        if (index < 0) {
+            offer(node.exact, depth, best, bestDepth);
+            return;
+        }
+        offer(node.subdomains, depth, best, bestDepth);
+        String label = labels[index];
+        Node child = node.children.get(label);
+        if (child != null) {
+            walk(child, labels, index - 1, depth + 1, best, bestDepth);
+        }
+        for (Glob glob : node.globs) {
+            if (glob.matches(label)) {
+                walk(glob.node(), labels, index - 1, depth + 1, best, bestDepth);
+            }
+        }
+    }
+
+    private static void offer(Match match, int depth, Match[] best, int[] bestDepth) {
+        if (match != null && (depth > bestDepth[0]
+                || depth == bestDepth[0] && match.order() < best[0].order())) {
+            best[0] = match;
+            bestDepth[0] = depth;
+        }
+    }
+
+    /**
+     * 插入一条规则
+     *
+     * @return 规则是否有效
+     */
+    private static boolean insert(Node root, String pattern, Match match) {
+        String[] labels = pattern.toLowerCase(Locale.ROOT).split("\\.", -1);
+        boolean subdomainsOnly = labels.length > 1 && labels[0].equals("*");
+        int first = subdomainsOnly ? 1 : 0;
+        for (int i = first; i < labels.length; i++) {
+            if (labels[i].isEmpty() || labels[i].indexOf('*') != labels[i].lastIndexOf('*')) {
+                return false;
+            }
+        }
+        Node node = root;
+        for (int i = labels.length - 1; i >= first; i--) {
+            node = node.child(labels[i]);
+        }
+        // 同一规则重复配置时以先配置的下载源为准
+        if (node.subdomains == null) {
+            node.subdomains = match;
+        }
+        if (!subdomainsOnly && node.exact == null) {
+            node.exact = match;
+        }
+        return true;
+    }
+
+    /**
+     * 拆分以逗号、空白或换行分隔的规则
+     */
+    private static List<String> splitPatterns(String hosts) {
+        List<String> patterns = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= hosts.length(); i++) {
+            char c = i < hosts.length() ? hosts.charAt(i) : ',';
+            boolean separator = c == ',' || c == '，' || c == ';' || Character.isWhitespace(c);
+            if (separator) {
+                if (start >= 0) {
+                    patterns.add(hosts.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * 取出链接的域名并按标签拆分，不是带域名的绝对地址时返回 {@code null}
+     */
+    private static String[] hostLabels(String url) {
+        int scheme = url.indexOf("://");
+        int start = scheme < 0 ? (url.startsWith("//") ? 2 : -1) : scheme + 3;
+        if (start < 0) {
+            return null;
+        }
+        int end = start;
+        int hostStart = start;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#' || c == '\\') {
+                break;
+            }
+            if (c == '@') {
+                hostStart = end + 1;
+            }
+            end++;
+        }
+        int port = url.lastIndexOf(':', end - 1);
+        if (port >= hostStart) {
+            end = port;
+        }
+        if (end > hostStart && url.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end <= hostStart || url.charAt(hostStart) == '[') {
+            return null;
+        }
+        return url.substring(hostStart, end).toLowerCase(Locale.ROOT).split("\\.", -1);
+    }
+
+    /**
+     * 前缀树节点，每一级对应域名中的一个标签
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Glob> globs = new ArrayList<>();
+        /**
+         * 域名恰好到此结束时匹配的下载源
+         */
+        private Match exact;
+        /**
+         * 域名在此之后还有标签时匹配的下载源
+         */
+        private Match subdomains;
+
+        Node child(String label) {
+            int star = label.indexOf('*');
+            if (star < 0) {
+                return children.computeIfAbsent(label, key -> new Node());
+            }
+            String prefix = label.substring(0, star);
+            String suffix = label.substring(star + 1);
+            for (Glob glob : globs) {
+                if (glob.prefix().equals(prefix) && glob.suffix().equals(suffix)) {
+                    return glob.node();
+                }
+            }
+            Glob glob = new Glob(prefix, suffix, new Node());
+            globs.add(glob);
+            return glob.node();
+        }
+    }
+
+    /**
+     * 含 {@code *} 的标签
+     */
+    private record Glob(String prefix, String suffix, Node node) {
+
+        boolean matches(String label) {
+            return label.length() >= prefix.length() + suffix.length()
+                    && label.startsWith(prefix) && label.endsWith(suffix);
+        }
+    }
+
+    /**
+     * @param name 下载源名称
+     * @param order 下载源的配置顺序
+     */
+    private record Match(String name, int order) {
+    }
+}
@@ -0,0 +1,232 @@
+package site.muyin.downloadlinks.handle;
+
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static site.muyin.downloadlinks.handle.DownloadLinksScanner.CLOSE_TAG;
+import static site.muyin.downloadlinks.handle.DownloadLinksScanner.OPEN_TAG;
+
+/**
+ * 流式渲染会话
+ * <p>逐块接收文档，立即输出不含标签的部分，只缓存可能属于未结束标签的内容，
+ * 因此峰值内存约为单个输入块加上最大的单个 {@code <download-links>} 元素。</p>
+ * <p>由于无法向后查看，样式注入在第一个渲染出内容的下载块之前，且只识别此前出现的样式标记；
+ * 超过数据上限仍未结束的元素原样输出，不再继续缓存。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+final class StreamingRenderSession {
+
+    /**
+     * 下载块元素除 {@code data-links} 外允许的额外长度
+     */
+    private static final int ELEMENT_OVERHEAD = 8 * 1024;
+
+    private final DownloadLinksRenderer renderer;
+    private final RenderSnapshot snapshot;
+    private final DownloadLinksMetrics metrics;
+    private final String styleId;
+    /**
+     * 每次保留在缓冲区末尾的字符数，保证跨块的开始标签、结束标签和样式标记都能被完整识别
+     */
+    private final int carry;
+    private final long maxElementLength;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final Set<String> containerIds = new HashSet<>();
+    private final int[] linkCount = new int[1];
+    private long inputLength;
+    private int blocks;
+    private boolean styleFound;
+    private boolean styleInjected;
+    private boolean passThrough;
+
+    /**
+     * 缓冲区开头的开始标签尚未结束时，已查找过的长度与 {@code >} 的位置，避免每块重复扫描
+     */
+    private boolean pending;
+    private int pendingScanned;
+    private int pendingGt = -1;
+
+    StreamingRenderSession(DownloadLinksRenderer renderer, RenderSnapshot snapshot,
+                           DownloadLinksMetrics metrics, String styleId) {
+        this.renderer = renderer;
+        this.snapshot = snapshot;
+        this.metrics = metrics;
+        this.styleId = styleId;
+        this.carry = Math.max(OPEN_TAG.length(), Math.max(CLOSE_TAG.length(), styleId.length()));
+        this.maxElementLength =
+                snapshot.performanceSetting().getMaxPayloadSize() * 1024L + ELEMENT_OVERHEAD;
+    }
+
+    /**
+     * 接收一块输入
+     *
+     * @return 可以立即输出的内容
+     */
+    List<CharSequence> accept(CharSequence chunk) {
+        if (chunk.length() == 0) {
+            return Collections.emptyList();
+        }
+        inputLength += chunk.length();
+        buffer.append(chunk);
+        return drain(false);
+    }
+
+    /**
+     * 输入结束，输出剩余内容并记录指标
+     */
+    List<CharSequence> finish() {
+        List<CharSequence> out = drain(true);
+        metrics.recordInputSize((int) Math.min(Integer.MAX_VALUE, inputLength));
+        if (blocks == 0) {
+            metrics.recordFastExit();
+        } else {
+            metrics.recordPage(blocks, linkCount[0]);
+        }
+        return out;
+    }
+
+    private List<CharSequence> drain(boolean last) {
+        List<CharSequence> out = new ArrayList<>();
+        int len = buffer.length();
+        int pos = 0;
+        while (pos < len) {
+            if (passThrough) {
+                int close = DownloadLinksScanner.indexOf(buffer, CLOSE_TAG, pos, len);
+                if (close >= 0) {
+                    int end = close + CLOSE_TAG.length();
+                    emitText(out, pos, end);
+                    pos = end;
+                    passThrough = false;
+                    continue;
+                }
+                pos = emitSafe(out, pos, len, last);
+                break;
+            }
+            int open = findOpenTag(pos, len);
+            if (open < 0) {
+                pos = emitSafe(out, pos, len, last);
+                break;
+            }
+            if (open > pos) {
+                emitText(out, pos, open);
+                pos = open;
+                pending = false;
+            }
+            int end = findElementEnd(open, len);
+            if (end < 0) {
+                if (last) {
+                    // 与整篇渲染一致，未闭合的标签原样保留
+                    emitText(out, pos, len);
+                    pos = len;
+                } else if (len - open > maxElementLength) {
+                    metrics.recordOversizedPayload();
+                    resetPending();
+                    passThrough = true;
+                    continue;
+                }
+                break;
+            }
+            renderElement(out, open, end);
+            resetPending();
+            pos = end;
+        }
+        buffer.delete(0, pos);
+        return out;
+    }
+
+    /**
+     * 查找下一个开始标签，标签名后的字符尚未到达时不视为标签，留在缓冲区中等待
+     */
+    private int findOpenTag(int from, int len) {
+        int i = from;
+        while (true) {
+            int open = DownloadLinksScanner.indexOf(buffer, OPEN_TAG, i, len);
+            if (open < 0 || open + OPEN_TAG.length() >= len) {
+                return -1;
+            }
+            if (DownloadLinksScanner.isTagNameEnd(buffer, open + OPEN_TAG.length())) {
+                return open;
+            }
+            i = open + 1;
+        }
+    }
+
+    /**
+     * 查找从 {@code open} 开始的元素的结束位置，元素尚不完整时返回 -1
+     */
+    private int findElementEnd(int open, int len) {
+        int scanFrom = pending ? open + pendingScanned : open + OPEN_TAG.length();
+        pending = true;
+        int gt = pendingGt >= 0 ? open + pendingGt : DownloadLinksScanner.indexOf(buffer, '>',
+                Math.max(scanFrom, open + OPEN_TAG.length()));
+        if (gt < 0) {
+            pendingScanned = len - open;
+            return -1;
+        }
+        pendingGt = gt - open;
+        int close = DownloadLinksScanner.indexOf(buffer, CLOSE_TAG,
+                Math.max(gt + 1, scanFrom - CLOSE_TAG.length() + 1), len);
+        if (close < 0) {
+            pendingScanned = len - open;
+            return -1;
+        }
+        return close + CLOSE_TAG.length();
+    }
+
+    private void resetPending() {
+        pending = false;
+        pendingScanned = 0;
+        pendingGt = -1;
+    }
+
+    private void renderElement(List<CharSequence> out, int open, int end) {
+        int attrStart = open + OPEN_TAG.length();
+        int gt = open + pendingGt;
+        DownloadLinksScanner.Tag tag =
+                DownloadLinksScanner.newTag(buffer, open, end, attrStart, gt);
+        blocks++;
+        if (!styleFound && DownloadLinksScanner.indexOf(buffer, styleId, open, end) >= 0) {
+            styleFound = true;
+        }
+        String fragment = renderer.renderTag(buffer, tag, snapshot, null, containerIds, linkCount,
+                null);
+        if (fragment.isEmpty()) {
+            return;
+        }
+        if (!styleFound && !styleInjected) {
+            out.add(snapshot.styleBlock() + "\n");
+            styleInjected = true;
+        }
+        out.add(fragment);
+    }
+
+    /**
+     * 输出 {@code [pos, len)} 中不可能属于跨块标记的部分，返回新的位置
+     */
+    private int emitSafe(List<CharSequence> out, int pos, int len, boolean last) {
+        int safe = last ? len : Math.max(pos, len - carry);
+        emitText(out, pos, safe);
+        return safe;
+    }
+
+    private void emitText(List<CharSequence> out, int from, int to) {
+        if (to <= from) {
+            return;
+        }
+        if (!styleFound) {
+            int limit = Math.min(buffer.length(), to + styleId.length() - 1);
+            if (DownloadLinksScanner.indexOf(buffer, styleId, from, limit) >= 0) {
+                styleFound = true;
+            }
+        }
+        out.add(buffer.substring(from, to));
+    }
+}
@@ -0,0 +1,231 @@
+package site.muyin.downloadlinks.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.publisher.Mono;
+import site.muyin.downloadlinks.handle.RenderedFragmentCache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 下载链接渲染指标
+ * <p>统一在此注册插件的全部指标，渲染路径只持有已注册的计量器，不在请求中查找或创建。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public class DownloadLinksMetrics implements DisposableBean {
+
+    private static final String PREFIX = "download.links.";
+
+    public static final String PART_RAW = "raw";
+    public static final String PART_CONTENT = "content";
+
+    private final MeterRegistry registry;
+    private final DistributionSummary inputSize;
+    private final DistributionSummary blocksPerPage;
+    private final DistributionSummary linksPerPage;
+    private final Counter fastExits;
+    private final Counter parseFailures;
+    private final Counter truncatedLinks;
+    private final Counter oversizedPayloads;
+    private final Counter prerenderHits;
+    private final Counter prerenderMisses;
+    private final Counter offloads;
+    private final Counter offloadRejections;
+    private final Timer warmup;
+    private final AtomicInteger warmedUp = new AtomicInteger();
+    /**
+     * 本实例注册的全部计量器，销毁时从注册表移除
+     */
+    private final Set<Meter> meters = ConcurrentHashMap.newKeySet();
+
+    public DownloadLinksMetrics(MeterRegistry registry, RenderedFragmentCache fragmentCache) {
+        this.registry = registry;
+        this.inputSize = track(DistributionSummary.builder(PREFIX + "input.size")
+                .description("参与渲染的内容长度")
+                .baseUnit("chars")
+                .publishPercentileHistogram()
+                .register(registry));
+        this.blocksPerPage = track(DistributionSummary.builder(PREFIX + "blocks")
+                .description("每次渲染的下载块数量")
+                .publishPercentileHistogram()
+                .register(registry));
+        this.linksPerPage = track(DistributionSummary.builder(PREFIX + "links")
+                .description("每次渲染输出的链接数量")
+                .publishPercentileHistogram()
+                .register(registry));
+        this.fastExits = track(Counter.builder(PREFIX + "fast.exits")
+                .description("不含下载块、直接返回原文的渲染次数")
+                .register(registry));
+        this.parseFailures = track(Counter.builder(PREFIX + "parse.failures")
+                .description("data-links 解析失败次数")
+                .register(registry));
+        this.truncatedLinks = track(Counter.builder(PREFIX + "payload.truncated")
+                .description("被截断或丢弃的下载块数量")
+                .tag("reason", "max-links")
+                .register(registry));
+        this.oversizedPayloads = track(Counter.builder(PREFIX + "payload.truncated")
+                .description("被截断或丢弃的下载块数量")
+                .tag("reason", "max-payload-size")
+                .register(registry));
+        this.prerenderHits = track(Counter.builder(PREFIX + "prerender")
+                .description("读取预渲染内容的次数")
+                .tag("result", "hit")
+                .register(registry));
+        this.prerenderMisses = track(Counter.builder(PREFIX + "prerender")
+                .description("读取预渲染内容的次数")
+                .tag("result", "miss")
+                .register(registry));
+        this.offloads = track(Counter.builder(PREFIX + "offload")
+                .description("提交到渲染调度器执行的渲染次数")
+                .tag("result", "offloaded")
+                .register(registry));
+        this.offloadRejections = track(Counter.builder(PREFIX + "offload")
+                .description("提交到渲染调度器执行的渲染次数")
+                .tag("result", "rejected")
+                .register(registry));
+        this.warmup = track(Timer.builder(PREFIX + "warmup")
+                .description("启动预热耗时")
+                .register(registry));
+        track(Gauge.builder(PREFIX + "warmup.ready", warmedUp, AtomicInteger::get)
+                .description("启动预热是否已完成，1 表示完成")
+                .register(registry));
+        bindCache("fragment", fragmentCache);
+    }
+
+    /**
+     * 处理器渲染耗时计时器
+     *
+     * @param handler 处理器名称
+     * @param part 渲染的内容部分，{@link #PART_RAW} 或 {@link #PART_CONTENT}
+     */
+    public Timer renderTimer(String handler, String part) {
+        return track(Timer.builder(PREFIX + "render")
+                .description("内容处理器渲染耗时")
+                .tag("handler", handler)
+                .tag("part", part)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * 从订阅开始计时，直到结果发出、出错或取消
+     */
+    public <T> Mono<T> time(Timer timer, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return mono.doFinally(signal -> sample.stop(timer));
+        });
+    }
+
+    public void recordInputSize(int length) {
+        inputSize.record(length);
+    }
+
+    public void recordFastExit() {
+        fastExits.increment();
+    }
+
+    /**
+     * 记录一次完整渲染的下载块与链接数量
+     */
+    public void recordPage(int blocks, int links) {
+        blocksPerPage.record(blocks);
+        linksPerPage.record(links);
+    }
+
+    public void recordParseFailure() {
+        parseFailures.increment();
+    }
+
+    public void recordTruncatedLinks() {
+        truncatedLinks.increment();
+    }
+
+    public void recordOversizedPayload() {
+        oversizedPayloads.increment();
+    }
+
+    /**
+     * 记录一次预渲染内容读取
+     *
+     * @param hit 是否直接使用了预渲染内容，否则回退到实时渲染
+     */
+    public void recordPrerender(boolean hit) {
+        (hit ? prerenderHits : prerenderMisses).increment();
+    }
+
+    public void recordOffload() {
+        offloads.increment();
+    }
+
+    /**
+     * 记录一次渲染调度器排队已满、任务被拒绝
+     */
+    public void recordOffloadRejected() {
+        offloadRejections.increment();
+    }
+
+    /**
+     * 记录启动预热完成
+     */
+    public void recordWarmup(Duration elapsed) {
+        warmup.record(elapsed);
+        warmedUp.set(1);
+    }
+
+    /**
+     * 插件停止或预热重新开始时清除完成状态
+     */
+    public void resetWarmup() {
+        warmedUp.set(0);
+    }
+
+    /**
+     * 从注册表移除本实例注册的计量器
+     * <p>注册表由 Halo 提供，生命周期长于插件。不移除时，插件重新加载后按名称和标签
+     * 注册会取回旧的计量器，它们仍引用上一次加载的缓存和类加载器。</p>
+     */
+    @Override
+    public void destroy() {
+        meters.forEach(registry::remove);
+        meters.clear();
+    }
+
+    private <M extends Meter> M track(M meter) {
+        meters.add(meter);
+        return meter;
+    }
+
+    private void bindCache(String name, RenderedFragmentCache cache) {
+        track(FunctionCounter.builder(PREFIX + "cache.hits", cache,
+                        RenderedFragmentCache::hitCount)
+                .tag("cache", name)
+                .register(registry));
+        track(FunctionCounter.builder(PREFIX + "cache.misses", cache,
+                        RenderedFragmentCache::missCount)
+                .tag("cache", name)
+                .register(registry));
+        track(FunctionCounter.builder(PREFIX + "cache.evictions", cache,
+                        RenderedFragmentCache::evictionCount)
+                .tag("cache", name)
+                .register(registry));
+        track(Gauge.builder(PREFIX + "cache.size", cache, RenderedFragmentCache::size)
+                .tag("cache", name)
+                .register(registry));
+        track(Gauge.builder(PREFIX + "cache.weight", cache, RenderedFragmentCache::weight)
+                .tag("cache", name)
+                .baseUnit("bytes")
+                .register(registry));
+    }
+}
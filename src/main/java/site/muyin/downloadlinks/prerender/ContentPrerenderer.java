@@ -0,0 +1,401 @@
+package site.muyin.downloadlinks.prerender;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import run.halo.app.content.ContentWrapper;
+import run.halo.app.core.extension.content.Post;
+import run.halo.app.core.extension.content.SinglePage;
+import run.halo.app.core.extension.content.Snapshot;
+import run.halo.app.extension.ListOptions;
+import run.halo.app.extension.Metadata;
+import run.halo.app.extension.MetadataOperator;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.app.plugin.PluginConfigUpdatedEvent;
+import site.muyin.downloadlinks.extension.RenderedContent;
+import site.muyin.downloadlinks.extension.RenderedContent.OwnerKind;
+import site.muyin.downloadlinks.handle.DownloadLinksRenderer;
+import site.muyin.downloadlinks.handle.RenderSnapshot;
+import site.muyin.downloadlinks.setting.PerformanceSetting;
+import site.muyin.downloadlinks.util.HashUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 发布时预渲染
+ * <p>文章/页面发布或更新、插件设置变更时渲染发布快照中的下载卡片并保存为
+ * {@link RenderedContent}，内容处理器读取时只需按名称查找，校验通过即可直接替换。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContentPrerenderer implements DisposableBean {
+
+    /**
+     * 内存中缓存的预渲染内容的字符数上限
+     */
+    private static final long MAX_CACHED_CHARS = 32L * 1024 * 1024;
+
+    private final ReactiveExtensionClient client;
+    private final DownloadLinksRenderer renderer;
+
+    private final AtomicReference<Disposable> refreshing = new AtomicReference<>();
+
+    /**
+     * 已保存的预渲染内容索引，键为 {@link RenderedContent} 名称，随保存和删除更新
+     */
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    private final AtomicReference<Mono<Void>> indexLoad = new AtomicReference<>();
+    private volatile boolean indexLoaded;
+
+    /**
+     * 最近读取的预渲染内容，按字符数限制总量，命中时不再读取存储
+     */
+    private final Cache<String, RenderedContent.Spec> outputs = Caffeine.newBuilder()
+            .maximumWeight(MAX_CACHED_CHARS)
+            .weigher(ContentPrerenderer::weigh)
+            .build();
+
+    /**
+     * 查找与当前输入匹配的预渲染内容
+     * <p>只查内存索引，比较发布快照名称、设置指纹和输入长度，不计算输入哈希；
+     * 同一发布快照的输入不会变化，长度仅用于排除预览等输入与发布快照不同的情况。
+     * 索引表明条目可用时优先使用内存中的内容，未缓存时才读取存储。</p>
+     *
+     * @param releaseSnapshot 当前发布快照名称
+     * @param raw 渲染前的 raw
+     * @param content 渲染前的 content
+     * @return 设置指纹、发布快照和输入长度均一致时返回预渲染内容，否则为空
+     */
+    public Mono<RenderedContent.Spec> find(OwnerKind kind, String ownerName,
+                                           String releaseSnapshot, RenderSnapshot snapshot,
+                                           String raw, String content) {
+        if (ownerName == null || releaseSnapshot == null) {
+            return Mono.empty();
+        }
+        String name = kind.entryName(ownerName);
+        IndexEntry entry = index.get(name);
+        if (entry == null) {
+            if (!indexLoaded) {
+                loadIndex().subscribe(null, e -> {
+                });
+            }
+            return Mono.empty();
+        }
+        if (!entry.matches(releaseSnapshot, snapshot.fingerprint(), raw, content)) {
+            return Mono.empty();
+        }
+        RenderedContent.Spec cached = outputs.getIfPresent(name);
+        if (cached != null && entry.equals(IndexEntry.of(cached))) {
+            return Mono.just(cached);
+        }
+        return client.fetch(RenderedContent.class, name)
+                .map(RenderedContent::getSpec)
+                // 读取期间条目可能已被更新，以存储中的内容为准再比对一次
+                .filter(spec -> entry.equals(IndexEntry.of(spec)))
+                .doOnNext(spec -> outputs.put(name, spec))
+                .switchIfEmpty(Mono.fromRunnable(() -> index.remove(name, entry)))
+                .onErrorResume(e -> {
+                    log.debug("Failed to fetch pre-rendered content of {} {}",
+                            kind.value(), ownerName, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 预渲染文章，文章未发布或已删除时移除已有的预渲染内容
+     */
+    public Mono<Void> prerenderPost(String name) {
+        Mono<ContentRef> ref = client.fetch(Post.class, name)
+                .filter(post -> post.isPublished()
+                        && isNotDeleted(post.getMetadata(), post.getSpec().getDeleted()))
+                .map(post -> new ContentRef(post.getSpec().getReleaseSnapshot(),
+                        post.getSpec().getBaseSnapshot()));
+        return prerender(OwnerKind.POST, name, ref);
+    }
+
+    /**
+     * 预渲染页面，页面未发布或已删除时移除已有的预渲染内容
+     */
+    public Mono<Void> prerenderSinglePage(String name) {
+        Mono<ContentRef> ref = client.fetch(SinglePage.class, name)
+                .filter(page -> page.isPublished()
+                        && isNotDeleted(page.getMetadata(), page.getSpec().getDeleted()))
+                .map(page -> new ContentRef(page.getSpec().getReleaseSnapshot(),
+                        page.getSpec().getBaseSnapshot()));
+        return prerender(OwnerKind.SINGLE_PAGE, name, ref);
+    }
+
+    /**
+     * 设置变更后在后台重新预渲染全部文章和页面，关闭预渲染时删除全部已保存的内容，
+     * 再次变更时取消尚未完成的任务
+     * <p>需在 {@code RenderSnapshotProvider} 切换快照之后执行。</p>
+     */
+    @EventListener
+    public void onPluginConfigUpdated(PluginConfigUpdatedEvent event) {
+        Disposable task = renderer.snapshot()
+                .flatMapMany(snapshot -> snapshot.prerenderEnabled() ? refreshAll() : sweep())
+                .subscribe(null, e -> log.warn("Failed to refresh pre-rendered content", e));
+        Disposable previous = refreshing.getAndSet(task);
+        if (previous != null) {
+            previous.dispose();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Disposable task = refreshing.getAndSet(null);
+        if (task != null) {
+            task.dispose();
+        }
+        outputs.invalidateAll();
+    }
+
+    private Flux<Void> refreshAll() {
+        return Flux.concat(
+                client.listAll(Post.class, new ListOptions(), Sort.unsorted())
+                        .concatMap(post -> prerenderPost(post.getMetadata().getName())
+                                .onErrorResume(this::skipOnError)),
+                client.listAll(SinglePage.class, new ListOptions(), Sort.unsorted())
+                        .concatMap(page -> prerenderSinglePage(page.getMetadata().getName())
+                                .onErrorResume(this::skipOnError)));
+    }
+
+    /**
+     * 删除全部已保存的预渲染内容
+     */
+    private Flux<Void> sweep() {
+        return client.listAll(RenderedContent.class, new ListOptions(), Sort.unsorted())
+                .concatMap(renderedContent -> {
+                    index.remove(renderedContent.getMetadata().getName());
+                    outputs.invalidate(renderedContent.getMetadata().getName());
+                    return client.delete(renderedContent)
+                            .then()
+                            .onErrorResume(this::skipOnError);
+                });
+    }
+
+    private Mono<Void> prerender(OwnerKind kind, String ownerName, Mono<ContentRef> ref) {
+        String entryName = kind.entryName(ownerName);
+        // 索引加载失败时照常渲染，保存前仍会与存储中的内容比较
+        return loadIndex().onErrorResume(e -> Mono.empty())
+                .then(renderer.snapshot())
+                .flatMap(snapshot -> {
+                    if (!snapshot.prerenderEnabled()) {
+                        return delete(entryName);
+                    }
+                    return ref
+                            .flatMap(contentRef -> {
+                                IndexEntry entry = index.get(entryName);
+                                if (entry != null && entry.isCurrent(contentRef.releaseSnapshot(),
+                                        snapshot.fingerprint())) {
+                                    // 发布快照和设置都未变化，已保存的内容仍然有效
+                                    return Mono.just(true);
+                                }
+                                return render(kind, ownerName, contentRef, snapshot)
+                                        .flatMap(spec -> save(entryName, spec).thenReturn(true));
+                            })
+                            // 已不需要预渲染的内容移除旧结果，避免占用存储
+                            .switchIfEmpty(Mono.defer(() -> delete(entryName).thenReturn(false)))
+                            .then();
+                })
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(100))
+                        .filter(OptimisticLockingFailureException.class::isInstance));
+    }
+
+    /**
+     * 按内容处理器相同的规则渲染发布快照，不含下载块时为空
+     */
+    private Mono<RenderedContent.Spec> render(OwnerKind kind, String ownerName,
+                                              ContentRef ref, RenderSnapshot snapshot) {
+        if (ref.releaseSnapshot() == null || ref.baseSnapshot() == null) {
+            return Mono.empty();
+        }
+        return Mono.zip(client.fetch(Snapshot.class, ref.releaseSnapshot()),
+                        client.fetch(Snapshot.class, ref.baseSnapshot()))
+                .map(snapshots -> ContentWrapper.patchSnapshot(snapshots.getT1(),
+                        snapshots.getT2()))
+                .flatMap(wrapper -> {
+                    String raw = nullToEmpty(wrapper.getRaw());
+                    String content = nullToEmpty(wrapper.getContent());
+                    boolean contentOnly = snapshot.performanceSetting().getContentRenderMode()
+                            == PerformanceSetting.ContentRenderMode.CONTENT_ONLY;
+                    String owner = kind.entryName(ownerName);
+                    Mono<String> renderedContent =
+                            renderer.render(content, snapshot, owner).cache();
+                    Mono<String> renderedRaw = contentOnly || raw.equals(content)
+                            ? renderedContent : renderer.render(raw, snapshot, owner);
+                    return Mono.zip(renderedRaw, renderedContent)
+                            .filter(rendered -> !rendered.getT2().equals(content)
+                                    || !contentOnly && !rendered.getT1().equals(raw))
+                            .map(rendered -> new RenderedContent.Spec()
+                                    .setOwnerKind(kind.value())
+                                    .setOwnerName(ownerName)
+                                    .setReleaseSnapshot(ref.releaseSnapshot())
+                                    .setFingerprint(snapshot.fingerprint())
+                                    .setRawHash(hash(raw))
+                                    .setContentHash(hash(content))
+                                    .setRaw(contentOnly ? null : rendered.getT1())
+                                    .setContent(rendered.getT2()));
+                });
+    }
+
+    private Mono<RenderedContent> save(String name, RenderedContent.Spec spec) {
+        IndexEntry entry = IndexEntry.of(spec);
+        return client.fetch(RenderedContent.class, name)
+                .flatMap(existing -> {
+                    if (entry.equals(IndexEntry.of(existing.getSpec()))) {
+                        // 相同输入和设置的渲染结果相同，无需写入
+                        return Mono.just(existing);
+                    }
+                    existing.setSpec(spec);
+                    return client.update(existing);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    RenderedContent renderedContent = new RenderedContent();
+                    Metadata metadata = new Metadata();
+                    metadata.setName(name);
+                    renderedContent.setMetadata(metadata);
+                    renderedContent.setSpec(spec);
+                    return client.create(renderedContent);
+                }))
+                .doOnNext(saved -> {
+                    index.put(name, IndexEntry.of(saved.getSpec()));
+                    outputs.put(name, saved.getSpec());
+                });
+    }
+
+    private Mono<Void> delete(String name) {
+        outputs.invalidate(name);
+        boolean known = index.remove(name) != null;
+        if (!known && indexLoaded) {
+            // 索引已完整加载且不含该条目，无需读取存储
+            return Mono.empty();
+        }
+        return client.fetch(RenderedContent.class, name)
+                .flatMap(client::delete)
+                .then();
+    }
+
+    /**
+     * 从存储加载索引，只加载一次，失败后下次调用时重试
+     * <p>加载完成前查不到的条目按未预渲染处理。</p>
+     */
+    private Mono<Void> loadIndex() {
+        if (indexLoaded) {
+            return Mono.empty();
+        }
+        Mono<Void> load = indexLoad.get();
+        if (load != null) {
+            return load;
+        }
+        Mono<Void> created = client.listAll(RenderedContent.class, new ListOptions(),
+                        Sort.unsorted())
+                // 加载期间保存的条目较新，不覆盖
+                .doOnNext(renderedContent -> index.putIfAbsent(
+                        renderedContent.getMetadata().getName(),
+                        IndexEntry.of(renderedContent.getSpec())))
+                .then()
+                .doOnSuccess(ignored -> indexLoaded = true)
+                .doOnError(e -> {
+                    log.warn("Failed to load pre-rendered content index", e);
+                    indexLoad.set(null);
+                })
+                .cache();
+        return indexLoad.compareAndSet(null, created) ? created : loadIndex();
+    }
+
+    private Mono<Void> skipOnError(Throwable e) {
+        log.warn("Failed to pre-render content, it will be rendered on read", e);
+        return Mono.empty();
+    }
+
+    /**
+     * 内容哈希，附带长度以降低碰撞概率
+     */
+    private static String hash(String str) {
+        String value = nullToEmpty(str);
+        return Long.toHexString(HashUtils.fnv1a64(value)) + ":" + value.length();
+    }
+
+    private static boolean isNotDeleted(MetadataOperator metadata, Boolean deleted) {
+        return metadata.getDeletionTimestamp() == null && !Boolean.TRUE.equals(deleted);
+    }
+
+    private static String nullToEmpty(String str) {
+        return Objects.requireNonNullElse(str, "");
+    }
+
+    private static int weigh(String name, RenderedContent.Spec spec) {
+        return nullToEmpty(spec.getRaw()).length() + nullToEmpty(spec.getContent()).length();
+    }
+
+    /**
+     * 索引条目，只保存校验所需的字段
+     *
+     * @param rawLength 渲染前 raw 的长度，取自 raw 哈希
+     * @param contentLength 渲染前 content 的长度，取自 content 哈希
+     */
+    private record IndexEntry(String releaseSnapshot, String fingerprint, String rawHash,
+                              String contentHash, int rawLength, int contentLength) {
+
+        static IndexEntry of(RenderedContent.Spec spec) {
+            return new IndexEntry(spec.getReleaseSnapshot(), spec.getFingerprint(),
+                    spec.getRawHash(), spec.getContentHash(), hashedLength(spec.getRawHash()),
+                    hashedLength(spec.getContentHash()));
+        }
+
+        /**
+         * 是否由指定发布快照和设置渲染得到
+         */
+        boolean isCurrent(String releaseSnapshot, String fingerprint) {
+            return Objects.equals(releaseSnapshot, this.releaseSnapshot)
+                    && Objects.equals(fingerprint, this.fingerprint);
+        }
+
+        /**
+         * 是否可用于当前输入，只做常数时间的比较
+         */
+        boolean matches(String releaseSnapshot, String fingerprint, String raw,
+                        String content) {
+            return isCurrent(releaseSnapshot, fingerprint)
+                    && nullToEmpty(raw).length() == rawLength
+                    && nullToEmpty(content).length() == contentLength;
+        }
+
+        private static int hashedLength(String hash) {
+            int separator = hash == null ? -1 : hash.lastIndexOf(':');
+            if (separator < 0) {
+                return -1;
+            }
+            try {
+                return Integer.parseInt(hash.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 内容的发布快照与基础快照
+     */
+    private record ContentRef(String releaseSnapshot, String baseSnapshot) {
+    }
+}
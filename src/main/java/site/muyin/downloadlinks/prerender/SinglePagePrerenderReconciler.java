@@ -0,0 +1,51 @@
+package site.muyin.downloadlinks.prerender;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.content.SinglePage;
+import run.halo.app.extension.controller.Controller;
+import run.halo.app.extension.controller.ControllerBuilder;
+import run.halo.app.extension.controller.Reconciler;
+
+import java.time.Duration;
+
+/**
+ * 页面预渲染协调器
+ * <p>页面发布、更新或删除时刷新对应的预渲染内容，未开启预渲染时删除已保存的内容。
+ * 预渲染超时或失败时稍后重试，不向控制器抛出异常。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SinglePagePrerenderReconciler implements Reconciler<Reconciler.Request> {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    private static final Duration RETRY_INTERVAL = Duration.ofMinutes(1);
+
+    private final ContentPrerenderer prerenderer;
+
+    @Override
+    public Result reconcile(Request request) {
+        return prerenderer.prerenderSinglePage(request.name())
+                // 超时后取消渲染，释放协调线程
+                .timeout(TIMEOUT)
+                .thenReturn(Result.doNotRetry())
+                .onErrorResume(e -> {
+                    log.warn("Failed to pre-render single page {}, retry in {}", request.name(),
+                            RETRY_INTERVAL, e);
+                    return Mono.just(Result.requeue(RETRY_INTERVAL));
+                })
+                .block();
+    }
+
+    @Override
+    public Controller setupWith(ControllerBuilder builder) {
+        return builder.extension(new SinglePage()).build();
+    }
+}
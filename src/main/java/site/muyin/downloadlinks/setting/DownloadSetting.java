@@ -26,6 +26,16 @@ public class DownloadSetting {
 
     private List<DownloadSource> downloadSourceList;
 
+    /**
+     * 是否统计下载次数，打开链接时向插件上报一次点击
+     */
+    private boolean clickTracking;
+
+    /**
+     * 是否在链接信息中显示下载次数
+     */
+    private boolean showDownloadCounts;
+
     @Data
     @Accessors(chain = true)
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -38,5 +48,9 @@ public class DownloadSetting {
          * 图标
          */
         private String icon;
+        /**
+         * 匹配的域名，多个用逗号或换行分隔，未填写下载源的链接按域名识别
+         */
+        private String hosts;
     }
 }
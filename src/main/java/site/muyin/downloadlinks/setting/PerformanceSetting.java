@@ -0,0 +1,110 @@
+package site.muyin.downloadlinks.setting;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 性能配置
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+@Data
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PerformanceSetting {
+    public static final String GROUP = "performance";
+
+    /**
+     * 渲染缓存内存上限（KB），0 表示关闭缓存
+     */
+    private int renderCacheMaxSize = 2048;
+
+    /**
+     * 文章/页面内容渲染模式
+     */
+    private ContentRenderMode contentRenderMode = ContentRenderMode.ALL;
+
+    /**
+     * 单个下载块最多渲染的链接数，超出部分丢弃
+     */
+    private int maxLinksPerBlock = 500;
+
+    /**
+     * 单个下载块 {@code data-links} 内容上限（KB），超出时不渲染该块
+     */
+    private int maxPayloadSize = 512;
+
+    /**
+     * 是否通过样式端点提供外部样式表，代替在页面中内联样式
+     */
+    private boolean externalStylesheet;
+
+    /**
+     * 是否在文章/页面发布时预渲染下载卡片，读取时直接使用预渲染结果
+     */
+    private boolean prerender;
+
+    /**
+     * 内容长度达到该值（KB）时在渲染调度器上扫描和渲染，0 表示不按长度转移
+     */
+    private int offloadThreshold = 256;
+
+    /**
+     * 下载块数量达到该值时在渲染调度器上渲染，0 表示不按数量转移
+     */
+    private int offloadBlockThreshold = 50;
+
+    /**
+     * 渲染调度器线程数，0 表示使用 CPU 核数
+     */
+    private int offloadConcurrency;
+
+    /**
+     * 批量渲染的并行度，0 表示使用 CPU 核数，1 表示在当前线程依次渲染
+     */
+    private int batchParallelism;
+
+    /**
+     * 下载卡片标记模式
+     */
+    private MarkupMode markupMode = MarkupMode.STANDARD;
+
+    /**
+     * 下载块链接数超过该值时只在服务端渲染预览，其余链接由客户端渲染，0 表示关闭
+     */
+    private int hydrateThreshold;
+
+    /**
+     * 客户端渲染时服务端预先渲染的链接数
+     */
+    private int hydratePreviewSize = 20;
+
+    /**
+     * 插件启动后在后台预热渲染路径的时间上限（秒），0 表示不预热
+     */
+    private int warmupBudget = 5;
+
+    public enum ContentRenderMode {
+        /**
+         * 渲染 raw 与 content，两者相同时只渲染一次
+         */
+        ALL,
+        /**
+         * 仅渲染 content，raw 保持原样
+         */
+        CONTENT_ONLY
+    }
+
+    public enum MarkupMode {
+        /**
+         * 标准模板，链接通过按钮打开
+         */
+        STANDARD,
+        /**
+         * 紧凑模板，去除空白并使用原生链接，显著减少每个链接的输出字节
+         */
+        COMPACT
+    }
+}
@@ -0,0 +1,66 @@
+package site.muyin.downloadlinks.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * 分块字符解码器
+ * <p>逐块把字节解码为字符，被块边界截断的多字节字符保留到下一块再解码。非线程安全。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public final class CharChunkDecoder {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final CharsetDecoder decoder;
+    private ByteBuffer remaining = EMPTY;
+
+    public CharChunkDecoder(Charset charset) {
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * 解码一块字节
+     *
+     * @return 已完整解码的字符，可能为空
+     */
+    public CharSequence decode(byte[] bytes) {
+        ByteBuffer in;
+        if (remaining.hasRemaining()) {
+            in = ByteBuffer.allocate(remaining.remaining() + bytes.length);
+            in.put(remaining).put(bytes).flip();
+        } else {
+            in = ByteBuffer.wrap(bytes);
+        }
+        CharBuffer out = CharBuffer.allocate(
+                (int) (in.remaining() * (double) decoder.maxCharsPerByte()) + 1);
+        decoder.decode(in, out, false);
+        remaining = in.hasRemaining() ? copyOf(in) : EMPTY;
+        return out.flip();
+    }
+
+    /**
+     * 输入结束，解码剩余字节，不完整的字符按替换字符输出
+     */
+    public CharSequence flush() {
+        CharBuffer out = CharBuffer.allocate(
+                (int) (remaining.remaining() * (double) decoder.maxCharsPerByte()) + 4);
+        decoder.decode(remaining, out, true);
+        decoder.flush(out);
+        remaining = EMPTY;
+        return out.flip();
+    }
+
+    private static ByteBuffer copyOf(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+        copy.put(buffer).flip();
+        return copy;
+    }
+}
@@ -0,0 +1,266 @@
+package site.muyin.downloadlinks.util;
+
+/**
+ * 转义工具类
+ * <p>每种转义只扫描一次输入并直接追加到输出缓冲，无需转义时不产生新的字符串。</p>
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public final class EscapeUtils {
+
+    private EscapeUtils() {
+    }
+
+    /**
+     * HTML 转义并追加到输出缓冲
+     */
+    public static void appendHtml(StringBuilder out, String str) {
+        if (str == null) {
+            return;
+        }
+        int first = firstHtmlSpecial(str);
+        if (first < 0) {
+            out.append(str);
+            return;
+        }
+        out.append(str, 0, first);
+        appendHtml(out, str, first);
+    }
+
+    private static void appendHtml(StringBuilder out, String str, int from) {
+        int start = from;
+        for (int i = from, len = str.length(); i < len; i++) {
+            String replacement = htmlReplacement(str.charAt(i));
+            if (replacement != null) {
+                out.append(str, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(str, start, str.length());
+    }
+
+    private static int firstHtmlSpecial(String str) {
+        for (int i = 0, len = str.length(); i < len; i++) {
+            if (htmlReplacement(str.charAt(i)) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String htmlReplacement(char c) {
+        return switch (c) {
+            case '&' -> "&amp;";
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            case '"' -> "&quot;";
+            case '\'' -> "&#39;";
+            default -> null;
+        };
+    }
+
+    /**
+     * JS 单/双引号字符串字面量转义并追加到输出缓冲
+     */
+    public static void appendJsString(StringBuilder out, String str) {
+        if (str == null) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0, len = str.length(); i < len; i++) {
+            String replacement = switch (str.charAt(i)) {
+                case '\\' -> "\\\\";
+                case '\'' -> "\\'";
+                case '"' -> "\\\"";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(str, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(str, start, str.length());
+    }
+
+    /**
+     * JSON 字符串转义并追加到输出缓冲，额外转义 {@code <}、{@code >}、{@code &}，
+     * 结果可直接放入 HTML 的 {@code <script>} 中
+     */
+    public static void appendJsonStringInScript(StringBuilder out, String str) {
+        if (str == null) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0, len = str.length(); i < len; i++) {
+            char c = str.charAt(i);
+            String replacement = switch (c) {
+                case '\\' -> "\\\\";
+                case '"' -> "\\\"";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                case '<' -> "\\u003c";
+                case '>' -> "\\u003e";
+                case '&' -> "\\u0026";
+                case '\u2028' -> "\\u2028";
+                case '\u2029' -> "\\u2029";
+                default -> c < ' ' ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (replacement != null) {
+                out.append(str, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(str, start, str.length());
+    }
+
+    /**
+     * CSS {@code url('...')} 转义并追加到输出缓冲
+     */
+    public static void appendCssUrl(StringBuilder out, String str) {
+        if (str == null) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0, len = str.length(); i < len; i++) {
+            char c = str.charAt(i);
+            if (c == '\\' || c == '\'' || c == '"' || c == '(' || c == ')') {
+                out.append(str, start, i).append('\\').append(c);
+                start = i + 1;
+            }
+        }
+        out.append(str, start, str.length());
+    }
+
+    /**
+     * 先做 CSS {@code url('...')} 转义再做 HTML 转义，一次扫描完成，结果可直接放入 HTML 中的样式
+     */
+    public static void appendCssUrlInHtml(StringBuilder out, String str) {
+        if (str == null) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0, len = str.length(); i < len; i++) {
+            String replacement = switch (str.charAt(i)) {
+                case '\\' -> "\\\\";
+                case '\'' -> "\\&#39;";
+                case '"' -> "\\&quot;";
+                case '(' -> "\\(";
+                case ')' -> "\\)";
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(str, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(str, start, str.length());
+    }
+
+    /**
+     * 作为 {@code href} 属性值做 HTML 转义并追加到输出缓冲
+     * <p>{@code javascript:}、{@code vbscript:}、{@code data:} 等可执行脚本的地址替换为 {@code #}。</p>
+     */
+    public static void appendHrefInHtml(StringBuilder out, String str) {
+        if (str == null) {
+            return;
+        }
+        appendHtml(out, safeHref(str));
+    }
+
+    /**
+     * 可安全用作 {@code href} 的地址，可执行脚本的地址返回 {@code #}
+     */
+    public static String safeHref(String str) {
+        return str == null || isScriptUrl(str) ? "#" : str;
+    }
+
+    private static boolean isScriptUrl(String str) {
+        // 浏览器解析地址时会忽略首尾空白与控制字符，以及其中的制表符和换行
+        StringBuilder scheme = new StringBuilder(10);
+        for (int i = 0, len = str.length(); i < len; i++) {
+            char c = str.charAt(i);
+            if (c <= ' ' && (scheme.isEmpty() || c == '\t' || c == '\n' || c == '\r')) {
+                continue;
+            }
+            if (c == ':') {
+                String name = scheme.toString();
+                return name.equals("javascript") || name.equals("vbscript") || name.equals("data");
+            }
+            if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.'
+                    || scheme.length() >= 10) {
+                return false;
+            }
+            scheme.append(Character.toLowerCase(c));
+        }
+        return false;
+    }
+
+    /**
+     * HTML 反转义 {@code src[start, end)} 并写入 {@code dst}
+     * <p>反转义结果不会比输入更长，{@code dst} 长度不小于 {@code end - start} 即可。</p>
+     *
+     * @return 写入 {@code dst} 的字符数
+     */
+    public static int unescapeHtml(CharSequence src, int start, int end, char[] dst) {
+        int n = 0;
+        int i = start;
+        while (i < end) {
+            char c = src.charAt(i);
+            if (c == '&') {
+                int consumed = 0;
+                char decoded = 0;
+                if (matches(src, i, end, "&lt;")) {
+                    consumed = 4;
+                    decoded = '<';
+                } else if (matches(src, i, end, "&gt;")) {
+                    consumed = 4;
+                    decoded = '>';
+                } else if (matches(src, i, end, "&quot;")) {
+                    consumed = 6;
+                    decoded = '"';
+                } else if (matches(src, i, end, "&#39;")) {
+                    consumed = 5;
+                    decoded = '\'';
+                } else if (matches(src, i, end, "&#x27;")) {
+                    consumed = 6;
+                    decoded = '\'';
+                } else if (matches(src, i, end, "&apos;")) {
+                    consumed = 6;
+                    decoded = '\'';
+                } else if (matches(src, i, end, "&amp;")) {
+                    consumed = 5;
+                    decoded = '&';
+                }
+                if (consumed > 0) {
+                    dst[n++] = decoded;
+                    i += consumed;
+                    continue;
+                }
+            }
+            dst[n++] = c;
+            i++;
+        }
+        return n;
+    }
+
+    private static boolean matches(CharSequence src, int offset, int end, String entity) {
+        int len = entity.length();
+        if (offset + len > end) {
+            return false;
+        }
+        for (int k = 1; k < len; k++) {
+            if (src.charAt(offset + k) != entity.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,40 @@
+package site.muyin.downloadlinks.util;
+
+/**
+ * 哈希工具类
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+public final class HashUtils {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private HashUtils() {
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希
+     */
+    public static long fnv1a64(CharSequence str) {
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0, len = str.length(); i < len; i++) {
+            h ^= str.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希，计算 {@code chars[0, length)}
+     */
+    public static long fnv1a64(char[] chars, int length) {
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0; i < length; i++) {
+            h ^= chars[i];
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * 下载卡片客户端渲染
+ * 链接数较多的下载块只在服务端渲染预览，其余链接以 JSON 数据输出，
+ * 在下载块进入可视区域或点击“显示全部”时按服务端模板的结构渲染。
+ *
+ * 脚本可被多个下载块重复引用，只初始化一次；页面局部刷新后可调用
+ * window.ToolsDownloadLinks.init() 处理新内容。
+ */
+(function () {
+  if (window.ToolsDownloadLinks) {
+    return;
+  }
+
+  var SVG_NS = 'http://www.w3.org/2000/svg';
+  var ICON_PATH = 'M12 3v10m0 0 4-4m-4 4-4-4M5 21h14';
+  var ICON_SYMBOL_ID = 'tools-dl-download';
+
+  function element(tag, className, text) {
+    var el = document.createElement(tag);
+    if (className) {
+      el.className = className;
+    }
+    if (text) {
+      el.textContent = text;
+    }
+    return el;
+  }
+
+  function meta(link) {
+    return link.s + (link.c ? '  ·  提取码: ' + link.c : '')
+      + (link.k !== undefined ? '  ·  下载 ' + link.k + ' 次' : '');
+  }
+
+  function open(link) {
+    if (link.t && navigator.sendBeacon) {
+      navigator.sendBeacon(link.t);
+    }
+    window.open(link.u, '_blank', 'noopener,noreferrer');
+  }
+
+  function standardItem(link) {
+    var item = element('div', 'tools-download-links__item');
+    item.setAttribute('role', 'listitem');
+
+    var left = element('div', 'tools-download-links__left');
+    var icon = element('div', 'tools-download-links__icon' + (link.i ? ' ' + link.i : ''));
+    icon.setAttribute('role', 'img');
+    icon.setAttribute('aria-label', link.s);
+    left.appendChild(icon);
+
+    var info = element('div', 'tools-download-links__info');
+    var title = element('div', 'tools-download-links__title');
+    var titleLink = element('button', 'tools-download-links__title-link', link.n);
+    titleLink.type = 'button';
+    titleLink.setAttribute('role', 'link');
+    titleLink.setAttribute('aria-label', '下载 ' + link.n);
+    titleLink.addEventListener('click', function () {
+      open(link);
+    });
+    title.appendChild(titleLink);
+    info.appendChild(title);
+    info.appendChild(element('div', 'tools-download-links__meta', meta(link)));
+    left.appendChild(info);
+    item.appendChild(left);
+
+    var btn = element('button', 'tools-download-links__btn');
+    btn.type = 'button';
+    btn.setAttribute('aria-label', '下载 ' + link.n);
+    btn.addEventListener('click', function () {
+      open(link);
+    });
+    var svg = document.createElementNS(SVG_NS, 'svg');
+    svg.setAttribute('width', '22');
+    svg.setAttribute('height', '22');
+    svg.setAttribute('viewBox', '0 0 24 24');
+    svg.setAttribute('fill', 'none');
+    var path = document.createElementNS(SVG_NS, 'path');
+    path.setAttribute('d', ICON_PATH);
+    path.setAttribute('stroke', '#fff');
+    path.setAttribute('stroke-width', '2');
+    path.setAttribute('stroke-linecap', 'round');
+    path.setAttribute('stroke-linejoin', 'round');
+    svg.appendChild(path);
+    btn.appendChild(svg);
+    item.appendChild(btn);
+    return item;
+  }
+
+  function compactItem(link) {
+    var item = element('a', 'tools-dl-item');
+    item.href = link.u;
+    item.target = '_blank';
+    item.rel = 'noopener noreferrer';
+    if (link.t) {
+      item.setAttribute('ping', link.t);
+    }
+    item.appendChild(element('i', link.i));
+
+    var info = element('span');
+    info.appendChild(element('b', null, link.n));
+    info.appendChild(element('small', null, meta(link)));
+    item.appendChild(info);
+
+    var svg = document.createElementNS(SVG_NS, 'svg');
+    var use = document.createElementNS(SVG_NS, 'use');
+    use.setAttribute('href', '#' + ICON_SYMBOL_ID);
+    svg.appendChild(use);
+    item.appendChild(svg);
+    return item;
+  }
+
+  function hydrate(data) {
+    if (!data.parentNode) {
+      return;
+    }
+    var container = data.parentNode;
+    var list = container.querySelector('.tools-download-links__list');
+    var more = container.querySelector('.tools-download-links__more');
+    var links;
+    try {
+      links = JSON.parse(data.textContent);
+    } catch (e) {
+      links = [];
+    }
+    var render = data.getAttribute('data-mode') === 'compact' ? compactItem : standardItem;
+    var fragment = document.createDocumentFragment();
+    for (var i = 0; i < links.length; i++) {
+      fragment.appendChild(render(links[i]));
+    }
+    list.appendChild(fragment);
+    data.parentNode.removeChild(data);
+    if (more && more.parentNode) {
+      more.parentNode.removeChild(more);
+    }
+  }
+
+  var observer = 'IntersectionObserver' in window
+    ? new IntersectionObserver(function (entries) {
+      entries.forEach(function (entry) {
+        if (entry.isIntersecting) {
+          observer.unobserve(entry.target);
+          var data = entry.target.querySelector('script.tools-download-links__data');
+          if (data) {
+            hydrate(data);
+          }
+        }
+      });
+    }, {rootMargin: '200px 0px'})
+    : null;
+
+  function init(root) {
+    var islands = (root || document).querySelectorAll('script.tools-download-links__data');
+    Array.prototype.forEach.call(islands, function (data) {
+      if (data.getAttribute('data-bound')) {
+        return;
+      }
+      data.setAttribute('data-bound', 'true');
+      var container = data.parentNode;
+      var more = container.querySelector('.tools-download-links__more');
+      if (more) {
+        more.addEventListener('click', function () {
+          hydrate(data);
+        });
+      }
+      if (observer) {
+        observer.observe(container);
+      } else {
+        hydrate(data);
+      }
+    });
+  }
+
+  window.ToolsDownloadLinks = {init: init};
+
+  if (document.readyState === 'loading') {
+    document.addEventListener('DOMContentLoaded', function () {
+      init();
+    });
+  } else {
+    init();
+  }
+})();
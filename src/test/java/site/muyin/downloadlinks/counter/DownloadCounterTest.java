@@ -0,0 +1,107 @@
+package site.muyin.downloadlinks.counter;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.content.Post;
+import run.halo.app.extension.ReactiveExtensionClient;
+import site.muyin.downloadlinks.extension.DownloadCount;
+import site.muyin.downloadlinks.extension.RenderedContent.OwnerKind;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DownloadCounterTest {
+
+    private static final String POST_A = OwnerKind.POST.entryName("a");
+    private static final String POST_B = OwnerKind.POST.entryName("b");
+    private static final String LINK = DownloadCounter.linkHash("https://example.com/a.zip");
+
+    private final Map<String, DownloadCount> store = new ConcurrentHashMap<>();
+    private final DownloadCounter counter = new DownloadCounter(inMemoryClient(store));
+
+    @Test
+    void flushPersistsIncrements() {
+        counter.increment(POST_A, LINK);
+        counter.increment(POST_A, LINK);
+        counter.increment(POST_B, LINK);
+
+        counter.flush().block();
+
+        assertEquals(2, counter.count(POST_A, LINK));
+        assertEquals(1, counter.count(POST_B, LINK));
+        assertEquals(Long.valueOf(2), store.get(POST_A).getSpec().getCounts().get(LINK));
+    }
+
+    @Test
+    void flushOnlyChangesVersionOfUpdatedOwners() {
+        counter.increment(POST_A, LINK);
+        counter.increment(POST_B, LINK);
+        counter.flush().block();
+        long versionA = counter.version(POST_A);
+        long versionB = counter.version(POST_B);
+
+        counter.increment(POST_A, LINK);
+        counter.flush().block();
+
+        assertNotEquals(versionA, counter.version(POST_A));
+        assertEquals(versionB, counter.version(POST_B));
+        counter.flush().block();
+        assertEquals(versionB, counter.version(POST_B));
+    }
+
+    @Test
+    void incrementsDuringFlushAreNotLost() throws InterruptedException {
+        int threads = 4;
+        int clicks = 20_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < clicks; i++) {
+                    counter.increment(POST_A, LINK);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        while (workers.stream().anyMatch(Thread::isAlive)) {
+            counter.flush().block();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        counter.flush().block();
+
+        assertEquals((long) threads * clicks, counter.count(POST_A, LINK));
+    }
+
+    /**
+     * 文章总是存在，下载次数保存在内存中
+     */
+    private static ReactiveExtensionClient inMemoryClient(Map<String, DownloadCount> store) {
+        return (ReactiveExtensionClient) Proxy.newProxyInstance(
+                ReactiveExtensionClient.class.getClassLoader(),
+                new Class<?>[] {ReactiveExtensionClient.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "fetch" -> args[0] == Post.class
+                            ? Mono.just(new Post())
+                            : Mono.justOrEmpty(store.get((String) args[1]));
+                    case "create", "update" -> {
+                        DownloadCount downloadCount = (DownloadCount) args[0];
+                        store.put(downloadCount.getMetadata().getName(), downloadCount);
+                        yield Mono.just(downloadCount);
+                    }
+                    case "listAll" -> Flux.fromIterable(store.values());
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryExtensionClient";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
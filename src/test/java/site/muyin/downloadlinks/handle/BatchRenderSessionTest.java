@@ -0,0 +1,73 @@
+package site.muyin.downloadlinks.handle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchRenderSessionTest {
+
+    private static final String STYLE_TAG = "<style id=\"" + DownloadLinksRenderer.STYLE_ID + "\">";
+
+    private final DownloadLinksRenderer renderer = TestRenderers.newRenderer();
+
+    @Test
+    void styleInDocumentWithoutTagsIsNotInjectedAgain() {
+        String styled = "<head>" + STYLE_TAG + "</style></head><p>no links</p>";
+        List<String> result = renderer.renderBatch(
+                List.of(styled, TestRenderers.block("https://github.com/a.zip"))).block();
+
+        assertEquals(styled, result.get(0));
+        assertEquals(-1, result.get(1).indexOf(STYLE_TAG), result.get(1));
+    }
+
+    @Test
+    void styleIsInjectedOnlyIntoFirstRenderedDocument() {
+        String block = TestRenderers.block("https://github.com/a.zip");
+        List<String> result = renderer.renderBatch(List.of("<p>text</p>", block, block)).block();
+
+        assertEquals("<p>text</p>", result.get(0));
+        assertEquals(1, count(result.get(1), STYLE_TAG));
+        assertEquals(0, count(result.get(2), STYLE_TAG));
+    }
+
+    @Test
+    void repeatedBlocksGetDistinctContainerIds() {
+        String block = TestRenderers.block("https://github.com/a.zip");
+        List<String> result = renderer.renderBatch(List.of(block, block)).block();
+
+        String first = containerId(result.get(0));
+        String second = containerId(result.get(1));
+        assertNotEquals(first, second);
+        assertTrue(second.startsWith(first + "-"), second);
+    }
+
+    @Test
+    void batchMatchesSingleRender() {
+        String block = TestRenderers.block("https://github.com/a.zip", "https://example.com/b");
+        String html = "<p>before</p>" + block + "<p>after</p>";
+
+        assertEquals(renderer.render(html).block(),
+                renderer.renderBatch(List.of(html)).block().get(0));
+    }
+
+    private static int count(String str, String target) {
+        int n = 0;
+        for (int i = str.indexOf(target); i >= 0; i = str.indexOf(target, i + 1)) {
+            n++;
+        }
+        return n;
+    }
+
+    private static String containerId(String html) {
+        int start = html.indexOf(DownloadLinksRenderer.CONTAINER_ID_PREFIX);
+        int end = start;
+        while (end < html.length() && html.charAt(end) != '"' && html.charAt(end) != ' ') {
+            end++;
+        }
+        return html.substring(start, end);
+    }
+}
@@ -0,0 +1,86 @@
+package site.muyin.downloadlinks.handle;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 以重写前渲染器的输出为基准，校验默认设置下 {@link DownloadLinksRenderer#render(String)}
+ * 的输出不变
+ * <p>基准文件位于 {@code golden/} 目录，{@code *.expected.html} 由重写前的渲染器生成，
+ * 根节点 id 按出现顺序替换为 {@code ID1}、{@code ID2}……</p>
+ */
+class DownloadLinksRendererGoldenTest {
+
+    private static final Pattern CONTAINER_ID =
+            Pattern.compile(DownloadLinksRenderer.CONTAINER_ID_PREFIX + "[0-9a-f]+(-\\d+)?");
+
+    private final DownloadLinksRenderer renderer = TestRenderers.newRenderer();
+
+    @Test
+    void article() throws IOException {
+        assertGolden("article");
+    }
+
+    @Test
+    void pageWithHead() throws IOException {
+        assertGolden("page-with-head");
+    }
+
+    @Test
+    void escaping() throws IOException {
+        assertGolden("escaping");
+    }
+
+    @Test
+    void existingStyle() throws IOException {
+        assertGolden("existing-style");
+    }
+
+    @Test
+    void invalidBlocks() throws IOException {
+        assertGolden("invalid-blocks");
+    }
+
+    @Test
+    void noBlocks() throws IOException {
+        assertGolden("no-blocks");
+    }
+
+    private void assertGolden(String name) throws IOException {
+        String input = read(name + ".html");
+        String expected = read(name + ".expected.html");
+
+        assertEquals(expected, normalizeIds(renderer.render(input).block()), name);
+    }
+
+    static String normalizeIds(String html) {
+        Matcher matcher = CONTAINER_ID.matcher(html);
+        Map<String, String> ids = new LinkedHashMap<>();
+        StringBuilder out = new StringBuilder();
+        while (matcher.find()) {
+            String id = ids.computeIfAbsent(matcher.group(),
+                    key -> DownloadLinksRenderer.CONTAINER_ID_PREFIX + "ID" + (ids.size() + 1));
+            matcher.appendReplacement(out, id);
+        }
+        return matcher.appendTail(out).toString();
+    }
+
+    static String read(String name) throws IOException {
+        try (InputStream in = DownloadLinksRendererGoldenTest.class
+                .getResourceAsStream("/golden/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing golden file " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
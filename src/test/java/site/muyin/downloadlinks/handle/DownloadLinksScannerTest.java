@@ -0,0 +1,129 @@
+package site.muyin.downloadlinks.handle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadLinksScannerTest {
+
+    private static final String STYLE_ID = DownloadLinksRenderer.STYLE_ID;
+
+    @Test
+    void findsTagAndDataRange() {
+        String html = "<p>a</p><download-links class=\"x\" data-links = \"[1]\"></download-links>";
+        DownloadLinksScanner.ScanResult scan = DownloadLinksScanner.scan(html, STYLE_ID);
+
+        assertEquals(1, scan.tags().size());
+        DownloadLinksScanner.Tag tag = scan.tags().get(0);
+        assertEquals(html.indexOf("<download-links"), tag.start());
+        assertEquals(html.length(), tag.end());
+        assertEquals("[1]", html.substring(tag.dataStart(), tag.dataEnd()));
+    }
+
+    @Test
+    void unclosedTagIsIgnored() {
+        String html = "<download-links data-links=\"[1]\"><p>a</p></head>";
+        DownloadLinksScanner.ScanResult scan = DownloadLinksScanner.scan(html, STYLE_ID);
+
+        assertFalse(scan.hasTags());
+        assertEquals(html.indexOf("</head>"), scan.headIndex());
+    }
+
+    @Test
+    void tagAfterUnclosedTagIsNotMatchedAcrossIt() {
+        String html = "<download-links data-links=\"[1]\"<download-links data-links=\"[2]\">"
+                + "</download-links>";
+        DownloadLinksScanner.ScanResult scan = DownloadLinksScanner.scan(html, STYLE_ID);
+
+        assertEquals(1, scan.tags().size());
+        assertEquals(0, scan.tags().get(0).start());
+    }
+
+    @Test
+    void unquotedDataLinksHasNoData() {
+        String html = "<download-links data-links=[1]></download-links>";
+        DownloadLinksScanner.ScanResult scan = DownloadLinksScanner.scan(html, STYLE_ID);
+
+        assertEquals(1, scan.tags().size());
+        assertFalse(scan.tags().get(0).hasData());
+    }
+
+    @Test
+    void singleQuotedDataLinksHasNoData() {
+        String html = "<download-links data-links='[1]'></download-links>";
+
+        assertFalse(DownloadLinksScanner.scan(html, STYLE_ID).tags().get(0).hasData());
+    }
+
+    @Test
+    void dataLinksWithoutValueFallsThroughToLaterAttribute() {
+        String html = "<download-links data-links-x data-links=\"[2]\"></download-links>";
+        DownloadLinksScanner.Tag tag = DownloadLinksScanner.scan(html, STYLE_ID).tags().get(0);
+
+        assertEquals("[2]", html.substring(tag.dataStart(), tag.dataEnd()));
+    }
+
+    @Test
+    void longerTagNameIsNotMatched() {
+        String html = "<download-linksx data-links=\"[1]\"></download-linksx>";
+
+        assertFalse(DownloadLinksScanner.scan(html, STYLE_ID).hasTags());
+    }
+
+    @Test
+    void styleMarkerInsideTagIsFound() {
+        String html = "<download-links data-links=\"[1]\"><style id=\"" + STYLE_ID
+                + "\"></style></download-links>";
+
+        assertTrue(DownloadLinksScanner.scan(html, STYLE_ID).styleFound());
+    }
+
+    @Test
+    void styleMarkerOutsideTagIsFound() {
+        String html = "<!-- " + STYLE_ID + " --><download-links data-links=\"[1]\">"
+                + "</download-links>";
+
+        assertTrue(DownloadLinksScanner.scan(html, STYLE_ID).styleFound());
+    }
+
+    @Test
+    void headCloseInsideTagIsSkipped() {
+        String html = "<download-links data-links=\"[1]\"></head></download-links></head>";
+        DownloadLinksScanner.ScanResult scan = DownloadLinksScanner.scan(html, STYLE_ID);
+
+        assertEquals(html.lastIndexOf("</head>"), scan.headIndex());
+    }
+
+    @Test
+    void documentWithoutTagsKeepsStyleAndHead() {
+        String html = "<head><style id=\"" + STYLE_ID + "\"></style></head>";
+        DownloadLinksScanner.ScanResult scan = DownloadLinksScanner.scan(html, STYLE_ID);
+
+        assertFalse(scan.hasTags());
+        assertTrue(scan.styleFound());
+        assertEquals(html.indexOf("</head>"), scan.headIndex());
+    }
+
+    @Test
+    void multipleTagsInOrder() {
+        String html = "<download-links data-links=\"[1]\"></download-links>x"
+                + "<download-links data-links=\"[2]\"></download-links>";
+        List<DownloadLinksScanner.Tag> tags = DownloadLinksScanner.scan(html, STYLE_ID).tags();
+
+        assertEquals(2, tags.size());
+        assertEquals("[1]", html.substring(tags.get(0).dataStart(), tags.get(0).dataEnd()));
+        assertEquals("[2]", html.substring(tags.get(1).dataStart(), tags.get(1).dataEnd()));
+    }
+
+    @Test
+    void unclosedTagIsLeftUnchangedByRenderer() {
+        String html = "<p>a</p><download-links data-links=\"[{&quot;url&quot;:&quot;"
+                + "https://example.com&quot;}]\">";
+
+        assertEquals(html, TestRenderers.newRenderer().render(html).block());
+    }
+}
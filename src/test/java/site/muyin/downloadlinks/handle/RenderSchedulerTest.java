@@ -0,0 +1,96 @@
+package site.muyin.downloadlinks.handle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderSchedulerTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final RenderScheduler scheduler =
+            new RenderScheduler(new DownloadLinksMetrics(registry, new RenderedFragmentCache()));
+
+    @AfterEach
+    void tearDown() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void runsTaskOnRenderThread() {
+        String caller = Thread.currentThread().getName();
+        String thread = scheduler.offload(() -> Thread.currentThread().getName(), 1).block();
+
+        assertNotEquals(caller, thread);
+        assertTrue(thread.startsWith("download-links-render"), thread);
+        assertEquals(1.0, count("offloaded"));
+        assertEquals(0.0, count("rejected"));
+    }
+
+    @Test
+    void rejectionThrownByTaskIsNotRetriedInline() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.offload(() -> {
+            runs.incrementAndGet();
+            throw new RejectedExecutionException("from task");
+        }, 1).block());
+
+        assertEquals(1, runs.get());
+        assertEquals(1.0, count("offloaded"));
+        assertEquals(0.0, count("rejected"));
+    }
+
+    @Test
+    void rejectedSubmissionFailsWithoutRunningTask() {
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.offload(() -> await(release), 1).subscribe();
+        String caller = Thread.currentThread().getName();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        // 唯一线程被占用，持续提交直到排队已满
+        int submitted = 0;
+        while (count("rejected") == 0 && submitted < 10_000) {
+            scheduler.offload(() -> Thread.currentThread().getName(), 1)
+                    .subscribe(threads::add, errors::add);
+            submitted++;
+        }
+        // 放行前没有任务在当前线程执行
+        List<String> completed = List.copyOf(threads);
+
+        release.countDown();
+        assertEquals(1.0, count("rejected"));
+        assertEquals((double) submitted, count("offloaded"));
+        assertEquals(List.of(), completed);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof RenderScheduler.RenderRejectedException,
+                String.valueOf(errors.get(0)));
+        assertFalse(threads.contains(caller));
+    }
+
+    private static Object await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private double count(String result) {
+        return registry.get("download.links.offload").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,107 @@
+package site.muyin.downloadlinks.handle;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderedFragmentCacheTest {
+
+    private RenderedFragmentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RenderedFragmentCache();
+        cache.configure(1, 64);
+    }
+
+    @Test
+    void hitRequiresSamePayload() {
+        char[] payload = "[{\"url\":\"https://a.example/1\"}]".toCharArray();
+        RenderedFragmentCache.Key key = key(1, payload);
+        RenderedFragmentCache.Fragment fragment = fragment(payload, "<div>a</div>");
+        cache.put(key, fragment);
+
+        assertSame(fragment, cache.get(key, payload, payload.length));
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void hashCollisionIsTreatedAsMiss() {
+        char[] payload = "[{\"url\":\"https://a.example/1\"}]".toCharArray();
+        char[] other = "[{\"url\":\"https://b.example/1\"}]".toCharArray();
+        // 模拟哈希与长度都相同、内容不同的两个下载块
+        RenderedFragmentCache.Key key = key(1, payload);
+        cache.put(key, fragment(payload, "<div>a</div>"));
+
+        assertNull(cache.get(key, other, other.length));
+        assertEquals(0, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void payloadIsComparedUpToLength() {
+        char[] payload = "[1]".toCharArray();
+        char[] buffer = "[1]   ".toCharArray();
+        RenderedFragmentCache.Key key = key(1, payload);
+        RenderedFragmentCache.Fragment fragment = fragment(payload, "<div>1</div>");
+        cache.put(key, fragment);
+
+        assertSame(fragment, cache.get(key, buffer, payload.length));
+        assertNull(cache.get(key, buffer, buffer.length));
+    }
+
+    @Test
+    void entriesOfOlderSettingsVersionAreIgnored() {
+        char[] payload = "[1]".toCharArray();
+        cache.put(key(1, payload), fragment(payload, "<div>1</div>"));
+        cache.configure(2, 64);
+
+        assertNull(cache.get(key(1, payload), payload, payload.length));
+        assertEquals(0, cache.size());
+
+        cache.put(key(1, payload), fragment(payload, "<div>1</div>"));
+        assertEquals(0, cache.size());
+        // 迟到的旧版本配置不会回退
+        cache.configure(1, 64);
+        cache.put(key(2, payload), fragment(payload, "<div>1</div>"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictsWhenOverWeightLimit() {
+        cache.configure(1, 1);
+        String html = "x".repeat(200);
+        for (int i = 0; i < 10; i++) {
+            char[] payload = ("[" + i + "]").toCharArray();
+            cache.put(new RenderedFragmentCache.Key(1, i, payload.length, null, 0),
+                    fragment(payload, html));
+        }
+
+        assertTrue(cache.weight() <= 1024, "weight " + cache.weight());
+        assertTrue(cache.evictionCount() > 0);
+        assertEquals(cache.size() + cache.evictionCount(), 10);
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        cache.configure(1, 0);
+        char[] payload = "[1]".toCharArray();
+        cache.put(key(1, payload), fragment(payload, "<div>1</div>"));
+
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.size());
+    }
+
+    private static RenderedFragmentCache.Key key(long version, char[] payload) {
+        return new RenderedFragmentCache.Key(version, 42L, payload.length, null, 0);
+    }
+
+    private static RenderedFragmentCache.Fragment fragment(char[] payload, String html) {
+        return new RenderedFragmentCache.Fragment("tools-download-links--1", html, 1, payload);
+    }
+}
@@ -0,0 +1,139 @@
+package site.muyin.downloadlinks.handle;
+
+import org.junit.jupiter.api.Test;
+import site.muyin.downloadlinks.setting.DownloadSetting;
+import site.muyin.downloadlinks.setting.PerformanceSetting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceHostIndexTest {
+
+    @Test
+    void plainHostMatchesItselfAndSubdomains() {
+        SourceHostIndex index = index("GitHub", "github.com");
+
+        assertEquals("GitHub", index.match("https://github.com/halo-dev/halo"));
+        assertEquals("GitHub", index.match("https://objects.github.com/x"));
+        assertNull(index.match("https://notgithub.com/x"));
+        assertNull(index.match("https://github.com.evil.net/x"));
+    }
+
+    @Test
+    void leadingWildcardMatchesSubdomainsOnly() {
+        SourceHostIndex index = index("蓝奏云网盘", "*.lanzou.com");
+
+        assertEquals("蓝奏云网盘", index.match("https://www.lanzou.com/iAbC"));
+        assertEquals("蓝奏云网盘", index.match("https://a.b.lanzou.com/iAbC"));
+        assertNull(index.match("https://lanzou.com/iAbC"));
+    }
+
+    @Test
+    void wildcardInsideLabelMatchesAnyCharacters() {
+        SourceHostIndex index = index("蓝奏云网盘", "lanzou*.com");
+
+        assertEquals("蓝奏云网盘", index.match("https://lanzoui.com/x"));
+        assertEquals("蓝奏云网盘", index.match("https://www.lanzoux.com/x"));
+        assertEquals("蓝奏云网盘", index.match("https://lanzou.com/x"));
+        assertNull(index.match("https://lanzo.com/x"));
+        assertNull(index.match("https://lanzoui.cn/x"));
+    }
+
+    @Test
+    void wildcardWithPrefixAndSuffix() {
+        SourceHostIndex index = index("云盘", "pan-*-cdn.example.com");
+
+        assertEquals("云盘", index.match("https://pan-1-cdn.example.com/x"));
+        assertEquals("云盘", index.match("https://pan--cdn.example.com/x"));
+        assertNull(index.match("https://pan-cdn.example.com/x"));
+    }
+
+    @Test
+    void moreSpecificRuleWins() {
+        SourceHostIndex index = index("Aliyun", "aliyundrive.com", "阿里云网盘", "www.aliyundrive.com");
+
+        assertEquals("阿里云网盘", index.match("https://www.aliyundrive.com/s/1"));
+        assertEquals("Aliyun", index.match("https://api.aliyundrive.com/s/1"));
+    }
+
+    @Test
+    void configuredOrderBreaksTies() {
+        SourceHostIndex index = index("First", "*.example.com", "Second", "*.example.com");
+
+        assertEquals("First", index.match("https://a.example.com/"));
+    }
+
+    @Test
+    void hostIsExtractedFromUrl() {
+        SourceHostIndex index = index("GitHub", "github.com");
+
+        assertEquals("GitHub", index.match("https://user:pw@GitHub.com:8443/x?y#z"));
+        assertEquals("GitHub", index.match("//github.com./x"));
+        assertEquals("GitHub", index.match("http://github.com"));
+        assertNull(index.match("/relative/github.com"));
+        assertNull(index.match("https://[::1]/x"));
+        assertNull(index.match(null));
+    }
+
+    @Test
+    void patternsAreSplitBySeparators() {
+        SourceHostIndex index = index("夸克网盘", "pan.quark.cn， quark.cn;\nquark.com");
+
+        assertEquals("夸克网盘", index.match("https://pan.quark.cn/s/1"));
+        assertEquals("夸克网盘", index.match("https://quark.com/s/1"));
+    }
+
+    @Test
+    void invalidPatternsAreIgnored() {
+        SourceHostIndex index = index("Bad", "a**.com, .com, x..y");
+
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void unknownExplicitSourceKeepsLabelAndUsesHostForIcon() {
+        DownloadSetting setting = TestRenderers.defaultSetting();
+        setting.getDownloadSourceList().get(5).setHosts("github.com");
+        RenderSnapshot snapshot =
+                RenderSnapshot.create(1, "test", setting, new PerformanceSetting());
+        String url = "https://github.com/halo-dev/halo/releases";
+
+        assertEquals("Github 官方", snapshot.resolveSource("Github 官方", url));
+        assertEquals("GitHub", snapshot.resolveIconSource("Github 官方", url));
+        assertEquals("百度云网盘", snapshot.resolveIconSource("百度云网盘", url));
+        assertNull(snapshot.resolveIconSource("未知", "https://example.com/a.zip"));
+    }
+
+    @Test
+    void renderedCardShowsTypedSourceWithDetectedIcon() {
+        DownloadSetting setting = TestRenderers.defaultSetting();
+        setting.getDownloadSourceList().get(5).setHosts("github.com");
+        DownloadLinksRenderer renderer =
+                TestRenderers.newRenderer(setting, new PerformanceSetting());
+        String html = "<download-links data-links=\"[{&quot;url&quot;:&quot;"
+                + "https://github.com/a.zip&quot;,&quot;source&quot;:&quot;Github 官方&quot;}]\">"
+                + "</download-links>";
+
+        String rendered = renderer.render(html).block();
+
+        assertTrue(rendered.contains("aria-label=\"Github 官方\""), rendered);
+        assertTrue(rendered.contains("icon/github.png"), rendered);
+    }
+
+    /**
+     * @param pairs 依次为下载源名称与域名规则
+     */
+    private static SourceHostIndex index(String... pairs) {
+        List<DownloadSetting.DownloadSource> sources = new ArrayList<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            sources.add(new DownloadSetting.DownloadSource()
+                    .setName(pairs[i])
+                    .setHosts(pairs[i + 1]));
+        }
+        return SourceHostIndex.compile(sources);
+    }
+}
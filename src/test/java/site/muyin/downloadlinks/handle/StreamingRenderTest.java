@@ -0,0 +1,89 @@
+package site.muyin.downloadlinks.handle;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingRenderTest {
+
+    private static final String[] DOCUMENTS = {"article", "page-with-head", "escaping",
+            "existing-style", "invalid-blocks", "no-blocks"};
+
+    private static final int[] CHUNK_SIZES = {1, 7, 16, 64, 1024, Integer.MAX_VALUE};
+
+    private final DownloadLinksRenderer renderer = TestRenderers.newRenderer();
+
+    @Test
+    void chunkedOutputMatchesWholeRender() throws IOException {
+        for (String name : DOCUMENTS) {
+            String html = DownloadLinksRendererGoldenTest.read(name + ".html");
+            String expected = renderer.render(html).block();
+            for (int chunkSize : CHUNK_SIZES) {
+                assertEquals(expected, renderChunks(html, chunkSize), name + " / " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void repeatedBlocksGetSameIdsAsWholeRender() {
+        String block = TestRenderers.block("https://github.com/a.zip");
+        String html = block + "<p>x</p>" + block + block;
+
+        assertEquals(renderer.render(html).block(), renderChunks(html, 5));
+    }
+
+    @Test
+    void styleIsNotInjectedWithoutRenderedBlocks() {
+        String html = "<html><head></head><body><download-links data-links=\"[]\">"
+                + "</download-links></body></html>";
+        String styleBlock = renderer.snapshot().block().styleBlock() + "\n";
+
+        String whole = renderer.render(html).block();
+        String streamed = renderChunks(html, 13);
+
+        // 整篇渲染将样式注入到 </head> 之前，流式渲染无法向前插入，不注入
+        assertTrue(whole.contains(styleBlock + "</head>"));
+        assertEquals(whole.replace(styleBlock, ""), streamed);
+    }
+
+    @Test
+    void byteChunksSplittingMultiByteCharactersMatchWholeRender() throws IOException {
+        String html = DownloadLinksRendererGoldenTest.read("article.html");
+        byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+        DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+        List<DataBuffer> buffers = new ArrayList<>();
+        // 4 字节的块使多数中文字符跨块
+        for (int i = 0; i < bytes.length; i += 4) {
+            buffers.add(factory.wrap(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + 4))));
+        }
+
+        Flux<DataBuffer> output =
+                renderer.render(Flux.fromIterable(buffers), StandardCharsets.UTF_8, factory);
+        String streamed = DataBufferUtils.join(output)
+                .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+                .block();
+
+        assertEquals(renderer.render(html).block(), streamed);
+    }
+
+    private String renderChunks(String html, int chunkSize) {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < html.length(); i += Math.min(chunkSize, html.length() - i)) {
+            chunks.add(html.substring(i, i + Math.min(chunkSize, html.length() - i)));
+        }
+        StringBuilder out = new StringBuilder();
+        renderer.render(Flux.fromIterable(chunks)).toIterable().forEach(out::append);
+        return out.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package site.muyin.downloadlinks.handle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+import site.muyin.downloadlinks.config.PluginConfig;
+import site.muyin.downloadlinks.counter.DownloadCounter;
+import site.muyin.downloadlinks.metrics.DownloadLinksMetrics;
+import site.muyin.downloadlinks.setting.DownloadSetting;
+import site.muyin.downloadlinks.setting.PerformanceSetting;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用渲染器，设置固定，不依赖 Halo 运行环境
+ *
+ * @author <a href="https://lywq.muyin.site">lywq</a>
+ * @since 2026/10/17 10:00
+ **/
+final class TestRenderers {
+
+    private TestRenderers() {
+    }
+
+    static DownloadLinksRenderer newRenderer() {
+        return newRenderer(defaultSetting(), new PerformanceSetting());
+    }
+
+    static DownloadLinksRenderer newRenderer(DownloadSetting downloadSetting,
+                                             PerformanceSetting performanceSetting) {
+        ObjectMapper objectMapper = new PluginConfig().objectMapper();
+        RenderedFragmentCache fragmentCache = new RenderedFragmentCache();
+        RenderSnapshotProvider snapshotProvider = new RenderSnapshotProvider(
+                stubSettingFetcher(downloadSetting, performanceSetting), objectMapper,
+                fragmentCache);
+        DownloadLinksParser linksParser = new DownloadLinksParser(
+                new PluginConfig().downloadLinkReader(objectMapper));
+        DownloadLinksMetrics metrics =
+                new DownloadLinksMetrics(new SimpleMeterRegistry(), fragmentCache);
+        return new DownloadLinksRenderer(linksParser, snapshotProvider, fragmentCache, metrics,
+                new RenderScheduler(metrics), new DownloadCounter(null));
+    }
+
+    /**
+     * 按分组返回固定设置的 {@link ReactiveSettingFetcher}
+     */
+    static ReactiveSettingFetcher stubSettingFetcher(DownloadSetting downloadSetting,
+                                                     PerformanceSetting performanceSetting) {
+        return (ReactiveSettingFetcher) Proxy.newProxyInstance(
+                ReactiveSettingFetcher.class.getClassLoader(),
+                new Class<?>[] {ReactiveSettingFetcher.class},
+                (proxy, method, args) -> {
+                    if ("fetch".equals(method.getName())) {
+                        return switch ((String) args[0]) {
+                            case DownloadSetting.GROUP -> Mono.just(downloadSetting);
+                            case PerformanceSetting.GROUP -> Mono.just(performanceSetting);
+                            default -> Mono.empty();
+                        };
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> "StubReactiveSettingFetcher";
+                        };
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    static DownloadSetting defaultSetting() {
+        String[][] sources = {
+            {"百度云网盘", "baidu"}, {"阿里云网盘", "alipan"}, {"蓝奏云网盘", "lanzou"},
+            {"123云盘", "123pan"}, {"夸克网盘", "quark"}, {"GitHub", "github"},
+            {"Onedrive", "onedrive"}
+        };
+        List<DownloadSetting.DownloadSource> sourceList = new ArrayList<>();
+        for (String[] source : sources) {
+            sourceList.add(new DownloadSetting.DownloadSource()
+                    .setName(source[0])
+                    .setIcon("/plugins/download-links/assets/static/icon/" + source[1] + ".png"));
+        }
+        return new DownloadSetting()
+                .setLightModeSelector("[data-theme=light]")
+                .setDarkModeSelector(".dark, [data-color-scheme=dark]")
+                .setDownloadSourceList(sourceList);
+    }
+
+    /**
+     * 生成下载块
+     */
+    static String block(String... urls) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < urls.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{&quot;url&quot;:&quot;").append(urls[i])
+                    .append("&quot;,&quot;filename&quot;:&quot;file").append(i)
+                    .append(".zip&quot;,&quot;source&quot;:&quot;GitHub&quot;}");
+        }
+        return "<download-links data-links=\"" + json.append(']') + "\"></download-links>";
+    }
+}
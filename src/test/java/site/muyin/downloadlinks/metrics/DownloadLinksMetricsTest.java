@@ -0,0 +1,42 @@
+package site.muyin.downloadlinks.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import site.muyin.downloadlinks.handle.RenderedFragmentCache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadLinksMetricsTest {
+
+    @Test
+    void destroyRemovesAllRegisteredMeters() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DownloadLinksMetrics metrics = new DownloadLinksMetrics(registry,
+                new RenderedFragmentCache());
+        metrics.renderTimer("post", DownloadLinksMetrics.PART_CONTENT);
+        assertTrue(!registry.getMeters().isEmpty());
+
+        metrics.destroy();
+
+        assertTrue(registry.getMeters().isEmpty(), registry.getMeters().toString());
+    }
+
+    @Test
+    void reloadBindsMetersToNewInstance() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new DownloadLinksMetrics(registry, new RenderedFragmentCache()).destroy();
+
+        RenderedFragmentCache cache = new RenderedFragmentCache();
+        cache.configure(1, 64);
+        char[] payload = "[1]".toCharArray();
+        cache.put(new RenderedFragmentCache.Key(1, 1, payload.length, null, 0),
+                new RenderedFragmentCache.Fragment("id", "<div></div>", 1, payload));
+        DownloadLinksMetrics metrics = new DownloadLinksMetrics(registry, cache);
+        metrics.recordFastExit();
+
+        assertEquals(1.0, registry.get("download.links.cache.size").gauge().value());
+        assertEquals(1.0, registry.get("download.links.fast.exits").counter().count());
+    }
+}